@@ -0,0 +1,41 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Builds headless game environments for the benchmarks.
+ */
+final class BenchmarkEnv {
+
+    private BenchmarkEnv() {}
+
+    /**
+     * Creates a headless environment with logging turned off and no table delay.
+     *
+     * @param features - the card features as "featureSize x featureCount" (e.g. "3x4").
+     * @return - the environment object.
+     */
+    static Env create(String features) {
+        String[] sizes = features.split("x");
+        Properties properties = new Properties();
+        properties.put("FeatureSize", sizes[0]);
+        properties.put("FeatureCount", sizes[1]);
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("LogLevel", "OFF");
+
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        return new Env(logger, config, new UserInterfaceHeadless(), util);
+    }
+}
@@ -0,0 +1,84 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full headless dealer round, driven through claims: the dealer deals a full table, then the players take
+ * turns claiming a legal set on the table, which the dealer checks, collects and replaces, until the table has no set
+ * left (where the real dealer would wait for the timeout). Then the dealer returns all the cards to the deck.
+ * Every round starts with a new game, since the collected cards leave the deck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class DealerBenchmark {
+
+    /**
+     * The card features as "featureSize x featureCount".
+     */
+    @Param({"3x4", "3x6"})
+    public String features;
+
+    private Env env;
+    private Table table;
+    private int[] cardToSlot;
+    private Player[] players;
+    private Dealer dealer;
+
+    /**
+     * The cards of the set to claim next.
+     */
+    private int[] set;
+
+    @Setup(Level.Trial)
+    public void setUpEnv() {
+        env = BenchmarkEnv.create(features);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpGame() {
+        int[] slotToCard = new int[env.config.tableSize];
+        cardToSlot = new int[env.config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
+        table = new Table(env, slotToCard, cardToSlot);
+        players = new Player[env.config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+    }
+
+    @Benchmark
+    public int round() {
+        int claims = 0;
+        dealer.placeCardsTest();
+        while (table.hasSets()) {
+            claim(players[claims++ % players.length]);
+            dealer.removeCardsTest();
+            dealer.placeCardsTest();
+        }
+        dealer.removeAllCardsTest();
+        return claims;
+    }
+
+    // Places the player's tokens on the first set on the table and gives it to the dealer
+    private void claim(Player player) {
+        set = null;
+        table.forEachSet(cards -> {
+            if (set == null) set = cards.clone();
+        });
+        for (int card : set)
+            table.placeToken(player.id, cardToSlot[card]);
+        player.maybeSet = true;
+        dealer.addPlayersWithSet(player);
+    }
+}
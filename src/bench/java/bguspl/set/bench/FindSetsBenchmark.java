@@ -0,0 +1,67 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks finding the sets in a collection of cards, for several collection sizes and count limits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FindSetsBenchmark {
+
+    /**
+     * The card features as "featureSize x featureCount".
+     */
+    @Param({"3x4", "3x5", "3x6", "4x3"})
+    public String features;
+
+    /**
+     * The number of cards to search for sets in (capped by the deck size).
+     */
+    @Param({"12", "81", "729"})
+    public int deckSize;
+
+    /**
+     * The maximum number of sets to find (0 for no limit).
+     */
+    @Param({"1", "0"})
+    public int count;
+
+    private Env env;
+    private List<Integer> deck;
+
+    @Setup
+    public void setUp() {
+        env = BenchmarkEnv.create(features);
+        List<Integer> cards = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cards, new Random(42));
+        deck = new ArrayList<>(cards.subList(0, Math.min(deckSize, cards.size())));
+    }
+
+    @Benchmark
+    public void findSets(Blackhole blackhole) {
+        blackhole.consume(env.util.findSets(deck, count == 0 ? Integer.MAX_VALUE : count));
+    }
+
+    @Benchmark
+    public void forEachSet(Blackhole blackhole) {
+        int[] found = {0};
+        env.util.forEachSet(deck, set -> {
+            blackhole.consume(set);
+            return ++found[0] != count;
+        });
+    }
+}
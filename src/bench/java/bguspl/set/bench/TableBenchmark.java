@@ -0,0 +1,49 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks placing, removing and counting the cards on the table (with no table delay).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TableBenchmark {
+
+    /**
+     * The card features as "featureSize x featureCount".
+     */
+    @Param({"3x4", "3x6"})
+    public String features;
+
+    private Env env;
+    private Table table;
+    private int card;
+
+    @Setup
+    public void setUp() {
+        env = BenchmarkEnv.create(features);
+        table = new Table(env);
+        for (int slot = 0; slot < env.config.tableSize; slot += 2)
+            table.placeCard(slot, slot);
+    }
+
+    @Benchmark
+    public void placeAndRemoveCard() {
+        card = (card + 1) % env.config.deckSize;
+        int slot = card % (env.config.tableSize / 2) * 2 + 1; // an odd (empty) slot
+        table.placeCard(card, slot);
+        table.removeCard(slot);
+    }
+
+    @Benchmark
+    public int countCards() {
+        return table.countCards();
+    }
+}
@@ -0,0 +1,57 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks checking whether an array of cards is a legal set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UtilBenchmark {
+
+    private static final int CARD_ARRAYS = 1024;
+
+    /**
+     * The card features as "featureSize x featureCount".
+     */
+    @Param({"3x4", "3x5", "3x6", "4x3"})
+    public String features;
+
+    private Env env;
+    private int[][] cardArrays;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        env = BenchmarkEnv.create(features);
+        Random random = new Random(42);
+
+        List<Integer> cards = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cards, random);
+
+        // a mix of legal and illegal sets, so that the benchmark does not favour early exits
+        List<int[]> sets = env.util.findSets(cards, CARD_ARRAYS / 2);
+        cardArrays = new int[CARD_ARRAYS][];
+        for (int i = 0; i < CARD_ARRAYS; ++i)
+            cardArrays[i] = i % 2 == 0 && i / 2 < sets.size()
+                    ? sets.get(i / 2)
+                    : random.ints(env.config.featureSize, 0, env.config.deckSize).toArray();
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        next = (next + 1) % CARD_ARRAYS;
+        return env.util.testSet(cardArrays[next]);
+    }
+}
@@ -0,0 +1,89 @@
+package bguspl.set;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that hands the records to a writer thread, which formats and writes them with the wrapped handler.
+ * The game threads only put the records in a bounded buffer. If the writer falls behind and the buffer fills up, new
+ * records are dropped (and their number is logged once there is room again) rather than slowing the game down.
+ */
+public class AsyncFileHandler extends Handler {
+
+    /**
+     * The default number of records buffered for the writer thread.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private final Handler target;
+    private final BlockingQueue<LogRecord> records;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public AsyncFileHandler(Handler target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    public AsyncFileHandler(Handler target, int capacity) {
+        this.target = target;
+        this.records = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::write, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        if (!records.offer(record)) dropped.incrementAndGet();
+    }
+
+    private void write() {
+        try {
+            while (!closed || !records.isEmpty()) {
+                LogRecord record = records.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) continue;
+                long lost = dropped.getAndSet(0);
+                if (lost > 0)
+                    target.publish(new LogRecord(Level.WARNING, lost + " log records were dropped (the log writer fell behind)"));
+                target.publish(record);
+            }
+        } catch (InterruptedException ignored) {
+        } catch (RuntimeException e) {
+            reportError("log writer failed", e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    @Override
+    public synchronized void setFormatter(Formatter formatter) {
+        super.setFormatter(formatter);
+        target.setFormatter(formatter);     // the records are formatted by the wrapped handler, on the writer thread
+    }
+
+    @Override
+    public void flush() {
+        target.flush();
+    }
+
+    /**
+     * Writes the buffered records and closes the wrapped handler.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+}
@@ -0,0 +1,130 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The card images, scaled to the cell size in the screen's image format, shared by all the windows in the JVM.
+ * An image is loaded the first time its card is drawn and kept in a cache of the least recently drawn cards, bounded by
+ * config.cardImageCacheSize. A background thread loads the first cards of the deck in advance, so the first cards
+ * placed rarely wait for their images.
+ */
+class CardImages {
+
+    /**
+     * The shared images, by card features and cell size.
+     */
+    private static final Map<String, CardImages> shared = new HashMap<>();
+
+    private final Config config;
+
+    /**
+     * The images of the recently drawn cards, least recently drawn first (guarded by itself).
+     */
+    private final LinkedHashMap<Integer, Image> cache;
+
+    private final Image emptyCard;
+
+    private Thread prewarmer;
+
+    /**
+     * Returns the card images for the card features and cell size of the given configuration.
+     *
+     * @param config - the game configuration.
+     * @return - the card images shared by all the games with the same card features and cell size.
+     */
+    static synchronized CardImages of(Config config) {
+        String key = config.featureSize + "x" + config.featureCount + "@" + config.cellWidth + "x" + config.cellHeight;
+        return shared.computeIfAbsent(key, k -> new CardImages(config));
+    }
+
+    private CardImages(Config config) {
+        assert config.featureSize < 10; // otherwise there will be naming conflicts
+
+        this.config = config;
+        int capacity = Math.max(config.cardImageCacheSize, config.tableSize);
+        this.cache = new LinkedHashMap<Integer, Image>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.emptyCard = load("cards/empty_card.png");
+    }
+
+    /**
+     * @return - the image of an empty cell.
+     */
+    Image emptyCard() {
+        return emptyCard;
+    }
+
+    /**
+     * Returns the image of a card, loading it if it is not in the cache.
+     *
+     * @param card - the card id.
+     * @return - the image of the card.
+     */
+    Image card(int card) {
+        Image image;
+        synchronized (cache) {
+            image = cache.get(card);
+        }
+        if (image != null) return image;
+
+        image = load("cards/" + UserInterfaceSwing.intInBaseToPaddedString(card, config.featureCount, config.featureSize) + ".png");
+        synchronized (cache) {
+            Image loaded = cache.putIfAbsent(card, image);   // loaded by another thread meanwhile
+            return loaded != null ? loaded : image;
+        }
+    }
+
+    /**
+     * Starts loading the images of the first cards of the deck (as many as the cache holds) in the background.
+     */
+    synchronized void prewarm() {
+        if (prewarmer != null) return;
+        int cards = Math.min(config.deckSize, Math.max(config.cardImageCacheSize, config.tableSize));
+        prewarmer = new Thread(() -> {
+            for (int card = 0; card < cards; ++card)
+                card(card);
+        }, "card-images");
+        prewarmer.setDaemon(true);
+        prewarmer.setPriority(Thread.MIN_PRIORITY);
+        prewarmer.start();
+    }
+
+    /**
+     * Loads an image resource and draws it scaled to the cell size on an image in the screen's format, so drawing it
+     * is a plain copy.
+     */
+    private Image load(String filename) {
+        URL resource = getClass().getClassLoader().getResource(filename);
+        if (resource == null)
+            throw new RuntimeException(new FileNotFoundException(filename));
+        BufferedImage image;
+        try {
+            image = ImageIO.read(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        BufferedImage surface = GraphicsEnvironment.isHeadless()
+                ? new BufferedImage(config.cellWidth, config.cellHeight, BufferedImage.TYPE_INT_ARGB)
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                        .createCompatibleImage(config.cellWidth, config.cellHeight, Transparency.TRANSLUCENT);
+        Graphics2D g = surface.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, config.cellWidth, config.cellHeight, null);
+        g.dispose();
+        return surface;
+    }
+}
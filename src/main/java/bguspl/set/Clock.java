@@ -0,0 +1,93 @@
+package bguspl.set;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The source of time for the game entities.
+ * The system clock runs in real time. A simulation clock scales the real (wall-clock) time by a constant factor, so
+ * that all the game's delays, timeouts and freezes shrink together. It is not a virtual clock: the threads still run
+ * and get scheduled in real time, and any real jitter (e.g. a late wakeup or a lock held a bit too long) is multiplied
+ * by the speed too. At a speed of 1000, 1ms of real jitter becomes a whole second of game time, so the faster the
+ * clock the more the game's timing (e.g. who claims a set first) differs from a real time game.
+ */
+public class Clock {
+
+    /**
+     * The real time clock.
+     */
+    public static final Clock SYSTEM = new Clock(1);
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * How many game milliseconds pass in one real millisecond.
+     */
+    private final double speed;
+
+    private final long startMillis;
+    private final long startNanos;
+
+    /**
+     * @param speed - how many times faster than real time the clock runs (1 for real time).
+     */
+    public Clock(double speed) {
+        if (speed <= 0) throw new IllegalArgumentException("clock speed must be positive: " + speed);
+        this.speed = speed;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return - the current game time in milliseconds.
+     */
+    public long currentTimeMillis() {
+        if (speed == 1) return System.currentTimeMillis();
+        return startMillis + (long) ((System.nanoTime() - startNanos) * speed / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Sleeps for the given amount of game time.
+     *
+     * @param millis - the game milliseconds to sleep.
+     * @throws InterruptedException - if the thread is interrupted while sleeping.
+     */
+    public void sleep(long millis) throws InterruptedException {
+        if (millis <= 0) return;
+        // parking (unlike Thread.sleep) is not rounded up to whole real milliseconds
+        long start = System.nanoTime(), nanos = toRealNanos(millis);    // no deadline, which could overflow
+        for (long left = nanos; left > 0; left = nanos - (System.nanoTime() - start)) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Waits on a monitor (which the caller must own) for at most the given amount of game time.
+     *
+     * @param monitor - the object to wait on.
+     * @param millis  - the maximum game milliseconds to wait (0 to wait until notified, as in Object.wait).
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public void waitOn(Object monitor, long millis) throws InterruptedException {
+        if (millis <= 0) {
+            monitor.wait();
+            return;
+        }
+        long nanos = toRealNanos(millis);
+        monitor.wait(nanos / NANOS_PER_MILLI, (int) (nanos % NANOS_PER_MILLI));
+    }
+
+    /**
+     * Monitor waits are rounded up to whole real milliseconds, so shorter game time waits cannot be timed accurately.
+     *
+     * @return - the shortest game time a monitor wait can last.
+     */
+    public long resolutionMillis() {
+        return (long) Math.ceil(speed);
+    }
+
+    // saturates at Long.MAX_VALUE (a practically endless wait) rather than overflowing
+    private long toRealNanos(long millis) {
+        return Math.max(1, (long) (millis * (double) NANOS_PER_MILLI / speed));
+    }
+}
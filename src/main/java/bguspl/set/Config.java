@@ -21,6 +21,15 @@ public class Config {
     public final long randomSpinMin;
     public final long randomSpinMax;
 
+    /**
+     * Log only one of every n user interface calls of each kind (1 logs them all): card placements and removals,
+     * token placements and removals, timer updates (the countdown also at most once per second) and freeze updates
+     */
+    public final int logSampleCards;
+    public final int logSampleTokens;
+    public final int logSampleTimers;
+    public final int logSampleFreezes;
+
     /**
      * The number of features on the cards (e.g. shape, color etc.)
      */
@@ -51,11 +60,25 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * The threads that run the dealer and the players: platform (a thread each), pooled (shared reusable threads) or
+     * virtual (a virtual thread each, on Java 21 or later). Every player blocks for its game's whole lifetime, so only
+     * virtual threads keep the number of platform threads flat as players and tables are added. Pooled threads are
+     * reused across games, but the pool still grows with the number of players of the running games, and virtual
+     * falls back to pooled on JVMs older than 21.
+     */
+    public final String threadScheduler;
+
     /**
      * Whether to print out hints to the console or not
      */
     public final boolean hints;
 
+    /**
+     * Whether to search large collections of cards (e.g. the decks of the larger variants) for sets in parallel
+     */
+    public final boolean parallelSetSearch;
+
     /**
      * The number of milliseconds until the dealer reshuffles the deck (0 show timer since last action, -1 show nothing)
      */
@@ -132,6 +155,11 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The number of card images kept in memory (at least the table size; the least recently drawn are dropped first)
+     */
+    public final int cardImageCacheSize;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -155,7 +183,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -186,6 +214,10 @@ public class Config {
         Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
         String logFormat = properties.getProperty("LogFormat", "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
         Main.setLoggerLevelAndFormat(logger, logLevel, logFormat);
+        logSampleCards = Math.max(1, Integer.parseInt(properties.getProperty("LogSampleCards", "1")));
+        logSampleTokens = Math.max(1, Integer.parseInt(properties.getProperty("LogSampleTokens", "1")));
+        logSampleTimers = Math.max(1, Integer.parseInt(properties.getProperty("LogSampleTimers", "1")));
+        logSampleFreezes = Math.max(1, Integer.parseInt(properties.getProperty("LogSampleFreezes", "1")));
 
         // for debugging
         randomSpinMin = Long.parseLong(properties.getProperty("RandomSpinMin", "0"));
@@ -202,8 +234,10 @@ public class Config {
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        threadScheduler = properties.getProperty("ThreadScheduler", "platform");
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        parallelSetSearch = Boolean.parseBoolean(properties.getProperty("ParallelSetSearch", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
@@ -224,6 +258,7 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        cardImageCacheSize = Integer.parseInt(properties.getProperty("CardImageCacheSize", "128"));
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
@@ -8,11 +8,26 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final Clock clock;
+    public final Scheduler scheduler;
+    public final Metrics metrics;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, Clock.SYSTEM, new SchedulerPlatform(logger));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, Scheduler scheduler) {
+        this(logger, config, ui, util, clock, scheduler, new Metrics());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, Scheduler scheduler,
+               Metrics metrics) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
     }
 }
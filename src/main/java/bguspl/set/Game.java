@@ -0,0 +1,115 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Arrays;
+
+/**
+ * A single game: one table with its dealer and players, running in its own environment.
+ */
+public class Game {
+
+    /**
+     * The id of the game (unique within its host).
+     */
+    public final int id;
+
+    /**
+     * The game environment object.
+     */
+    public final Env env;
+
+    /**
+     * Game entities.
+     */
+    private final Table table;
+    private final Dealer dealer;
+    private final Player[] players;
+
+    /**
+     * The thread running the dealer (null until the game is started).
+     */
+    private volatile Scheduler.Task dealerThread;
+
+    /**
+     * Creates a game with computer players only.
+     *
+     * @param id  - the id of the game.
+     * @param env - the environment object.
+     */
+    public Game(int id, Env env) {
+        this(id, env, new Player[env.config.players]);
+    }
+
+    /**
+     * Creates a game whose players are stored in the given array (e.g. one that the user interface already holds).
+     *
+     * @param id      - the id of the game.
+     * @param env     - the environment object.
+     * @param players - an array of config.players entries to fill with the game's players.
+     */
+    public Game(int id, Env env, Player[] players) {
+        this.id = id;
+        this.env = env;
+        this.players = players;
+        table = new Table(env);
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+    }
+
+    /**
+     * Starts the dealer thread (which starts the player threads).
+     */
+    public void start() {
+        start(null);
+    }
+
+    /**
+     * Starts the dealer thread (which starts the player threads).
+     *
+     * @param onFinished - called on the dealer thread once the game has ended (may be null).
+     */
+    public void start(Runnable onFinished) {
+        dealerThread = env.scheduler.start(() -> {
+            try {
+                dealer.run();
+            } finally {
+                env.logger.info(() -> "game " + id + " metrics:" + System.lineSeparator() + env.metrics.toText());
+                if (onFinished != null) onFinished.run();
+            }
+        }, "dealer-" + id);
+    }
+
+    /**
+     * Terminates the game (the dealer terminates the players).
+     */
+    public void terminate() {
+        dealer.terminate();
+    }
+
+    /**
+     * Waits until the game has ended.
+     *
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void join() throws InterruptedException {
+        if (dealerThread != null) dealerThread.join();
+    }
+
+    /**
+     * @return - true iff the game was started and has not ended yet.
+     */
+    public boolean isRunning() {
+        return dealerThread != null && dealerThread.isAlive();
+    }
+
+    /**
+     * @return - the scores of the players, by player id.
+     */
+    public int[] scores() {
+        return Arrays.stream(players).mapToInt(Player::score).toArray();
+    }
+}
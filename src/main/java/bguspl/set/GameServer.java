@@ -0,0 +1,152 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Hosts many independent headless games in a single JVM.
+ * All the games share the same (immutable) configuration, utilities and clock, while every game has its own table,
+ * dealer and players. The number of games running at once is capped, and every game can be terminated on its own.
+ */
+public class GameServer {
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+    private final Clock clock;
+    private final Scheduler scheduler;
+
+    /**
+     * The free tables (the number of additional games that can run at once).
+     */
+    private final Semaphore freeTables;
+
+    /**
+     * The games that are currently running, by id.
+     */
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextGameId = new AtomicInteger();
+
+    /**
+     * The metrics of all the games hosted by the server that have ended (every game records into its own metrics,
+     * which are added to these when it ends).
+     */
+    public final Metrics metrics = new Metrics();
+
+    /**
+     * True iff the server does not admit new games anymore.
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * @param logger    - the logger shared by all the games.
+     * @param config    - the configuration shared by all the games.
+     * @param util      - the utilities shared by all the games.
+     * @param clock     - the clock shared by all the games.
+     * @param scheduler - the scheduler that runs the threads of all the games.
+     * @param maxTables - the maximum number of games that can run at once.
+     */
+    public GameServer(Logger logger, Config config, Util util, Clock clock, Scheduler scheduler, int maxTables) {
+        if (maxTables <= 0) throw new IllegalArgumentException("the server must have at least one table: " + maxTables);
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.freeTables = new Semaphore(maxTables, true);
+    }
+
+    /**
+     * Starts a new game if a table is free.
+     *
+     * @param onFinished - called with the game once it has ended (may be null).
+     * @return - the game, or null if all the tables are taken or the server is shut down.
+     */
+    public Game tryHost(Consumer<Game> onFinished) {
+        if (shutdown || !freeTables.tryAcquire()) return null;
+        return startGame(onFinished);
+    }
+
+    /**
+     * Starts a new game, waiting for a table to be free.
+     *
+     * @param onFinished - called with the game once it has ended (may be null).
+     * @param timeout    - the maximum time to wait for a table.
+     * @param unit       - the unit of the timeout.
+     * @return - the game, or null if no table was freed in time or the server is shut down.
+     * @throws InterruptedException - if interrupted while waiting for a table.
+     */
+    public Game host(Consumer<Game> onFinished, long timeout, TimeUnit unit) throws InterruptedException {
+        if (shutdown || !freeTables.tryAcquire(timeout, unit)) return null;
+        return startGame(onFinished);
+    }
+
+    private Game startGame(Consumer<Game> onFinished) {
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util, clock, scheduler);
+        Game game = new Game(nextGameId.getAndIncrement(), env);
+        games.put(game.id, game);
+        game.start(() -> {
+            // the game counts as running until its results are recorded, so awaitGames does not miss them
+            try {
+                metrics.add(game.env.metrics);
+                if (onFinished != null) onFinished.accept(game);
+            } finally {
+                games.remove(game.id);
+                freeTables.release();
+            }
+        });
+        if (shutdown) game.terminate(); // shut down while the game was being started
+        return game;
+    }
+
+    /**
+     * Terminates a single game.
+     *
+     * @param gameId - the id of the game.
+     * @return - true iff the game was running.
+     */
+    public boolean terminate(int gameId) {
+        Game game = games.get(gameId);
+        if (game == null) return false;
+        game.terminate();
+        return true;
+    }
+
+    /**
+     * @return - the games that are currently running.
+     */
+    public Collection<Game> games() {
+        return Collections.unmodifiableCollection(games.values());
+    }
+
+    /**
+     * Stops admitting new games, terminates the running ones and waits for them to end.
+     *
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        shutdown = true;
+        List<Game> running = new ArrayList<>(games.values());
+        for (Game game : running) game.terminate();
+        for (Game game : running) game.join();
+    }
+
+    /**
+     * Waits until all the running games have ended by themselves.
+     *
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void awaitGames() throws InterruptedException {
+        for (Game game : new ArrayList<>(games.values())) game.join();
+    }
+}
@@ -43,7 +43,7 @@ class InputManager extends KeyAdapter {
         int keyCode = e.getKeyCode();
         int player = keyMap[keyCode] - 1;
         if (player >= 0){
-            logger.severe("key " + keyCode + " was pressed by player " + (player + 1));
+            logger.fine(() -> "key " + keyCode + " was pressed by player " + (player + 1));
             players[player].keyPressed(keyToSlot[keyCode]);
         }
     }
@@ -0,0 +1,111 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds, which any number of threads can record into without locking.
+ * The buckets are log-linear (as in HdrHistogram): every power of two is split into SUB_BUCKETS equal buckets, so the
+ * percentiles are accurate to within 1/SUB_BUCKETS of their value, from single nanoseconds up to the longest duration.
+ * Reads are not atomic with respect to concurrent records, which is fine for reporting.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of buckets every power of two is split into.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos - the duration in nanoseconds (negative durations are recorded as 0).
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        total.add(nanos);
+        if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Adds all the durations recorded by another histogram to this one.
+     *
+     * @param other - the histogram to add (which should not be recording meanwhile).
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; ++i) {
+            long n = other.counts.get(i);
+            if (n > 0) counts.addAndGet(i, n);
+        }
+        count.add(other.count.sum());
+        total.add(other.total.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * @return - the number of durations recorded.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return - the mean duration in nanoseconds (0 if none was recorded).
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * @return - the longest duration recorded in nanoseconds (0 if none was recorded).
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile - the percentage of the durations (between 0 and 100).
+     * @return - the duration in nanoseconds that the given percentage of the durations do not exceed (rounded up to
+     *           the end of its bucket), or 0 if none was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+            n += counts.get(i);
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(Math.max(percentile, 0), 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS && n > 0; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestValue(i), max());
+        }
+        return 0;
+    }
+
+    // Below SUB_BUCKETS every value has its own bucket. Above, the values from 2^k to 2^(k+1) fall into SUB_BUCKETS
+    // buckets of width 2^(k - SUB_BUCKET_BITS).
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
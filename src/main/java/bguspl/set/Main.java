@@ -1,11 +1,12 @@
 package bguspl.set;
 
-import bguspl.set.ex.Dealer;
 import bguspl.set.ex.Player;
-import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -17,16 +18,21 @@ import java.util.logging.*;
  */
 public class Main {
 
-    private static Dealer dealer;
+    private static Game game;
     private static Thread thread;
 
     private static boolean xButtonPressed = false;
     private static Logger logger;
 
+    /**
+     * The path of the log file without its extension, which the metrics file shares.
+     */
+    private static String logPath;
+
     public static void xButtonPressed() {
         if (logger != null) logger.severe("exit button pressed");
         xButtonPressed = true;
-        if (dealer != null) dealer.terminate();
+        if (game != null) game.terminate();
         thread.interrupt();
         try { thread.join(); } catch (InterruptedException ignored) {}
     }
@@ -49,34 +55,32 @@ public class Main {
         Player[] players = new Player[config.players];
         UserInterface ui = null;
         try {
-            ui = new UserInterfaceSwing(logger, config, players);
+            // the game threads post updates, which the swing user interface draws in batches
+            ui = new UserInterfaceAsync(new UserInterfaceSwing(logger, config, players), config.players);
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
+        Metrics metrics = new Metrics();
+        ui = new UserInterfaceDecorator(logger, config, util, ui, metrics.uiCall);
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, Clock.SYSTEM, Scheduler.create(config.threadScheduler, logger),
+                metrics);
 
-        // create the game entities
-        Table table = new Table(env);
-        dealer = new Dealer(env, table, players);
-        for (int i = 0; i < players.length; i++)
-            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
-
-        // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        // create the game entities and start the dealer thread
+        game = new Game(0, env, players);
+        game.start();
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
+            game.join();
             if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
             env.ui.dispose();
         } catch (InterruptedException ignored) {
         } finally {
+            exportMetrics(env.metrics);
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
@@ -88,11 +92,13 @@ public class Main {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            logPath = "./logs/" + format.format(Calendar.getInstance().getTime());
+            // the game threads don't wait for the log file: the records are formatted and written by a writer thread
+            handler = new AsyncFileHandler(new FileHandler(logPath + ".log"));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -105,12 +111,23 @@ public class Main {
         return logger;
     }
 
+    /**
+     * Writes the metrics of the game as JSON next to the log file.
+     */
+    private static void exportMetrics(Metrics metrics) {
+        try {
+            Files.write(Paths.get(logPath + ".metrics.json"), metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warning("error writing the metrics: " + e.getMessage());
+        }
+    }
+
     public static void setLoggerLevelAndFormat(Logger logger, Level level, String format) {
         Handler[] handlers = logger.getHandlers();
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {    // not synchronized: it only formats the given record
                 return String.format(format, new Date(lr.getMillis()),
                         lr.getLevel().getLocalizedName(), lr.getMessage()
                 );
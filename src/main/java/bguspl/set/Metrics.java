@@ -0,0 +1,113 @@
+package bguspl.set;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and latency histograms of a game (or of all the games sharing them), which any thread can update.
+ * A snapshot can be exported at any time, as text (one metric per line) or as JSON (durations in microseconds).
+ */
+public class Metrics {
+
+    /**
+     * The time from a player's claim of a set until the dealer's verdict on it.
+     */
+    public final LatencyHistogram claimToVerdict = new LatencyHistogram();
+
+    /**
+     * The time it takes the dealer to refill the empty slots of the table (including the table delay).
+     */
+    public final LatencyHistogram refill = new LatencyHistogram();
+
+    /**
+     * The time it takes the dealer to return all the cards to the deck and shuffle it.
+     */
+    public final LatencyHistogram reshuffle = new LatencyHistogram();
+
+    /**
+     * The time the game threads spend in user interface calls.
+     */
+    public final LatencyHistogram uiCall = new LatencyHistogram();
+
+    public final LongAdder claims = new LongAdder();
+    public final LongAdder validSets = new LongAdder();
+    public final LongAdder penalties = new LongAdder();
+    public final LongAdder reshuffles = new LongAdder();
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, LongAdder> counters = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+
+    public Metrics() {
+        counters.put("claims", claims);
+        counters.put("validSets", validSets);
+        counters.put("penalties", penalties);
+        counters.put("reshuffles", reshuffles);
+        latencies.put("claimToVerdict", claimToVerdict);
+        latencies.put("refill", refill);
+        latencies.put("reshuffle", reshuffle);
+        latencies.put("uiCall", uiCall);
+    }
+
+    /**
+     * Adds the counts and durations of other metrics (e.g. of a game that has ended) to these.
+     *
+     * @param other - the metrics to add.
+     */
+    public void add(Metrics other) {
+        counters.forEach((name, counter) -> counter.add(other.counters.get(name).sum()));
+        latencies.forEach((name, histogram) -> histogram.add(other.latencies.get(name)));
+    }
+
+    /**
+     * @return - the metrics as text, one per line (durations in microseconds). Latencies with no recorded durations
+     *           (e.g. the user interface calls of headless games, which are not timed) are left out.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        counters.forEach((name, counter) -> text.append(String.format("%-16s %d%n", name, counter.sum())));
+        latencies.forEach((name, histogram) -> {
+            if (histogram.count() == 0) return;
+            text.append(String.format(Locale.ROOT, "%-16s count=%d mean=%.1fus", name, histogram.count(),
+                    histogram.mean() / 1000));
+            for (double percentile : PERCENTILES)
+                text.append(String.format(Locale.ROOT, " p%s=%.1fus", format(percentile),
+                        histogram.valueAtPercentile(percentile) / 1000.0));
+            text.append(String.format(Locale.ROOT, " max=%.1fus%n", histogram.max() / 1000.0));
+        });
+        return text.toString();
+    }
+
+    /**
+     * @return - the metrics as a JSON object with "counters" and "latencies" (durations in microseconds).
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            json.append(separator).append('"').append(counter.getKey()).append("\":").append(counter.getValue().sum());
+            separator = ",";
+        }
+        json.append("},\"latencies\":{");
+        separator = "";
+        for (Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+            LatencyHistogram histogram = latency.getValue();
+            json.append(separator).append('"').append(latency.getKey()).append("\":{\"count\":").append(histogram.count())
+                    .append(String.format(Locale.ROOT, ",\"mean\":%.1f", histogram.mean() / 1000));
+            for (double percentile : PERCENTILES)
+                json.append(String.format(Locale.ROOT, ",\"p%s\":%.1f", format(percentile),
+                        histogram.valueAtPercentile(percentile) / 1000.0));
+            json.append(String.format(Locale.ROOT, ",\"max\":%.1f}", histogram.max() / 1000.0));
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    // 50 -> "50", 99.9 -> "99.9"
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
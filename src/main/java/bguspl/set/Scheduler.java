@@ -0,0 +1,66 @@
+package bguspl.set;
+
+import java.util.logging.Logger;
+
+/**
+ * Starts the threads of the game (the dealer, the players and the computer players' key press simulators).
+ */
+public interface Scheduler {
+
+    /**
+     * A running task of the scheduler.
+     */
+    interface Task {
+
+        /**
+         * Interrupts the task's thread (only while it is running the task).
+         */
+        void interrupt();
+
+        /**
+         * Waits for the task to end.
+         *
+         * @throws InterruptedException - if interrupted while waiting.
+         */
+        void join() throws InterruptedException;
+
+        /**
+         * @return - true iff the task has not ended yet.
+         */
+        boolean isAlive();
+    }
+
+    /**
+     * Starts running a task.
+     *
+     * @param target - the task to run.
+     * @param name   - the name of the task (and of its thread while running it).
+     * @return - the running task.
+     */
+    Task start(Runnable target, String name);
+
+    /**
+     * Creates a scheduler by name.
+     *
+     * @param mode   - "platform" (a new thread per task), "pooled" (shared reusable threads, as many as the tasks
+     *               running at once) or "virtual" (a virtual thread per task, when running on Java 21 or later, and
+     *               pooled threads otherwise).
+     * @param logger - the logger.
+     * @return - the scheduler.
+     */
+    static Scheduler create(String mode, Logger logger) {
+        switch (mode.trim().toLowerCase()) {
+            case "pooled":
+                return new SchedulerPooled(logger);
+            case "virtual":
+                if (SchedulerVirtual.isSupported()) return new SchedulerVirtual(logger);
+                logger.severe("virtual threads are not supported by this JVM, using pooled threads instead.");
+                return new SchedulerPooled(logger);
+            case "platform":
+                return new SchedulerPlatform(logger);
+            default:
+                logger.severe("unknown thread scheduler " + mode + ", using platform threads.");
+                return new SchedulerPlatform(logger);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package bguspl.set;
+
+import java.util.logging.Logger;
+
+/**
+ * A scheduler that starts a new thread for every task.
+ */
+public class SchedulerPlatform implements Scheduler {
+
+    protected final Logger logger;
+
+    public SchedulerPlatform(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public Task start(Runnable target, String name) {
+        Thread thread = newThread(target, name);
+        ThreadLogger.logStart(logger, name);
+        thread.start();
+        return new ThreadTask(thread);
+    }
+
+    /**
+     * Creates the (unstarted) thread that runs a task.
+     *
+     * @param target - the task to run.
+     * @param name   - the name of the thread.
+     * @return - the thread.
+     */
+    protected Thread newThread(Runnable target, String name) {
+        return new Thread(target, name);
+    }
+
+    private class ThreadTask implements Task {
+
+        private final Thread thread;
+
+        private ThreadTask(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public void interrupt() {
+            thread.interrupt();
+        }
+
+        @Override
+        public void join() throws InterruptedException {
+            thread.join();
+            ThreadLogger.logStop(logger, thread.getName());
+        }
+
+        @Override
+        public boolean isAlive() {
+            return thread.isAlive();
+        }
+    }
+}
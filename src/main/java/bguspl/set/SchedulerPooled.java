@@ -0,0 +1,93 @@
+package bguspl.set;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A scheduler that runs the tasks on a shared pool of reusable daemon threads.
+ * The game tasks block for most of their lives, so the pool grows to the number of tasks running at once (it cannot be
+ * bounded below that without starving them), but the threads are reused by the following games and tables instead of
+ * being created for every game, and idle threads are retired.
+ */
+public class SchedulerPooled implements Scheduler {
+
+    private final Logger logger;
+    private final ExecutorService executor;
+
+    public SchedulerPooled(Logger logger) {
+        this.logger = logger;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(target -> {
+            Thread thread = new Thread(target, "pooled-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Task start(Runnable target, String name) {
+        PooledTask task = new PooledTask(target, name);
+        ThreadLogger.logStart(logger, name);
+        executor.execute(task);
+        return task;
+    }
+
+    private class PooledTask implements Task, Runnable {
+
+        private final Runnable target;
+        private final String name;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /**
+         * The thread running the task (null before and after it runs) and whether it was asked to be interrupted.
+         */
+        private Thread runner;
+        private boolean interrupted;
+
+        private PooledTask(Runnable target, String name) {
+            this.target = target;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            Thread thread = Thread.currentThread();
+            String poolName = thread.getName();
+            synchronized (this) {
+                runner = thread;
+                if (interrupted) thread.interrupt();
+            }
+            thread.setName(name);
+            try {
+                target.run();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                Thread.interrupted(); // do not pass an interrupt on to the next task of this thread
+                thread.setName(poolName);
+                done.countDown();
+            }
+        }
+
+        @Override
+        public synchronized void interrupt() {
+            interrupted = true;
+            if (runner != null) runner.interrupt();
+        }
+
+        @Override
+        public void join() throws InterruptedException {
+            done.await();
+            ThreadLogger.logStop(logger, name);
+        }
+
+        @Override
+        public boolean isAlive() {
+            return done.getCount() > 0;
+        }
+    }
+}
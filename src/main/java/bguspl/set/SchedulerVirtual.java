@@ -0,0 +1,52 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.logging.Logger;
+
+/**
+ * A scheduler that starts a new virtual thread for every task, so that the blocked game threads do not hold on to
+ * platform threads. Virtual threads are looked up at runtime, since the game is built for older Java versions too.
+ */
+public class SchedulerVirtual extends SchedulerPlatform {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+            unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> {}); // fails if virtual threads are a disabled preview
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    /**
+     * @return - true iff the JVM supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    public SchedulerVirtual(Logger logger) {
+        super(logger);
+        if (!isSupported()) throw new UnsupportedOperationException("virtual threads are not supported by this JVM");
+    }
+
+    @Override
+    protected Thread newThread(Runnable target, String name) {
+        try {
+            return (Thread) UNSTARTED.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), name), target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create a virtual thread", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * This class contains the main function of the simulation mode: it runs complete games between computer players only,
+ * with no user interface and on a fast clock, and reports the games per second and the score distribution.
+ * Usage: Simulation [games] [clock speed] [tables] [Property=Value]...
+ * The games are hosted by a game server, so that up to [tables] games run at once.
+ * The properties are read from config.properties and can be overridden from the command line (e.g. TurnTimeoutSeconds=30).
+ */
+public class Simulation {
+
+    private static final int DEFAULT_GAMES = 10;
+    private static final double DEFAULT_SPEED = 1000;
+    private static final int DEFAULT_TABLES = 1;
+
+    private final Config config;
+
+    /**
+     * Total score, minimum score, maximum score and number of wins (including draws) of each player.
+     */
+    private final long[] totalScores;
+    private final int[] minScores;
+    private final int[] maxScores;
+    private final int[] wins;
+
+    private int games;
+
+    public Simulation(Config config) {
+        this.config = config;
+        totalScores = new long[config.players];
+        minScores = new int[config.players];
+        maxScores = new int[config.players];
+        wins = new int[config.players];
+        Arrays.fill(minScores, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records the players' scores of a game that has ended.
+     *
+     * @param game - the game.
+     */
+    public synchronized void record(Game game) {
+        int[] scores = game.scores();
+        int bestScore = Arrays.stream(scores).max().orElse(0);
+        for (int player = 0; player < scores.length; player++) {
+            totalScores[player] += scores[player];
+            minScores[player] = Math.min(minScores[player], scores[player]);
+            maxScores[player] = Math.max(maxScores[player], scores[player]);
+            if (scores[player] == bestScore) ++wins[player];
+        }
+        ++games;
+    }
+
+    /**
+     * Prints the score distribution of the games played so far.
+     *
+     * @param elapsedMillis - the real time it took to play the games.
+     */
+    public synchronized void report(long elapsedMillis) {
+        System.out.printf("%d games in %.2f seconds (%.2f games per second)%n",
+                games, elapsedMillis / 1000.0, games * 1000.0 / Math.max(elapsedMillis, 1));
+        for (int i = 0; i < config.players; i++)
+            System.out.printf("%-12s average score: %6.2f  min: %3d  max: %3d  wins: %d%n", config.playerNames[i],
+                    (double) totalScores[i] / Math.max(games, 1), games > 0 ? minScores[i] : 0, maxScores[i], wins[i]);
+    }
+
+    /**
+     * The simulation's main function.
+     *
+     * @param args - the number of games, the clock speed (game time per real time), the number of tables and
+     *             property overrides.
+     */
+    public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        List<String> overrides = new ArrayList<>();
+        for (String arg : args) (arg.contains("=") ? overrides : positional).add(arg);
+        int gameCount = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : DEFAULT_GAMES;
+        double speed = positional.size() > 1 ? Double.parseDouble(positional.get(1)) : DEFAULT_SPEED;
+        int tables = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : DEFAULT_TABLES;
+
+        Logger logger = Logger.getLogger("SetGameSimulationLogger");
+        logger.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties("config.properties", logger);
+
+        // logging is off unless asked for, and all the players of the (overridden) configuration are computer players
+        properties.setProperty("LogLevel", "OFF");
+        for (String override : overrides) {
+            String[] property = override.split("=", 2);
+            properties.setProperty(property[0].trim(), property[1].trim());
+        }
+        int players = Integer.parseInt(properties.getProperty("HumanPlayers", "2"))
+                + Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        properties.setProperty("HumanPlayers", "0");
+
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        GameServer server = new GameServer(logger, config, util, new Clock(speed),
+                Scheduler.create(config.threadScheduler, logger), tables);
+
+        Simulation simulation = new Simulation(config);
+        long start = System.currentTimeMillis();
+        try {
+            for (int game = 0; game < gameCount; game++)
+                server.host(simulation::record, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            server.awaitGames();
+        } catch (InterruptedException ignored) {
+        } finally {
+            simulation.report(System.currentTimeMillis() - start);
+            System.out.print(server.metrics.toText());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.awt.EventQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A user interface that lets the game threads post their updates without waiting for them to be drawn.
+ * The updates are applied to the wrapped user interface in batches, on the event dispatch thread, at most once a frame.
+ * Changes to the table (cards, tokens) and the winner announcement are applied in the order they were made, while
+ * the timer, the freeze times and the scores only show their latest value, so the updates made in between are skipped.
+ * The latest values are applied after the table changes of the batch (e.g. a score after the removal of the cards that
+ * earned it), and before the winner announcement.
+ */
+public class UserInterfaceAsync implements UserInterface {
+
+    /**
+     * The time between batches of updates (about 60 frames per second).
+     */
+    private static final int FRAME_MILLIS = 16;
+
+    /**
+     * The value of a displayed number that has no pending update.
+     */
+    private static final long NONE = -1;
+
+    private final UserInterface ui;
+
+    /**
+     * The updates to apply in order.
+     */
+    private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The latest countdown (the millis times 2, plus 1 if warning) and elapsed time, NONE if applied already.
+     */
+    private final AtomicLong countdown = new AtomicLong(NONE);
+    private final AtomicLong elapsed = new AtomicLong(NONE);
+
+    /**
+     * The latest freeze time and score of each player, NONE if applied already.
+     */
+    private final AtomicLongArray freezes;
+    private final AtomicIntegerArray scores;
+
+    /**
+     * True iff a batch is scheduled, so further updates join it.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer timer;
+
+    /**
+     * True once disposed of (only accessed on the event dispatch thread, like the timer).
+     */
+    private boolean disposed;
+
+    public UserInterfaceAsync(UserInterface ui, int players) {
+        this.ui = ui;
+        this.freezes = new AtomicLongArray(players);
+        this.scores = new AtomicIntegerArray(players);
+        for (int player = 0; player < players; ++player) {
+            freezes.set(player, NONE);
+            scores.set(player, (int) NONE);
+        }
+        this.timer = new Timer(FRAME_MILLIS, e -> flush());
+        timer.setRepeats(false);
+    }
+
+    private void post(Runnable event) {
+        events.add(event);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true))
+            EventQueue.invokeLater(() -> {    // swing timers are not meant to be started off the event dispatch thread
+                if (!disposed) timer.restart();
+            });
+    }
+
+    /**
+     * Applies the pending updates (on the event dispatch thread).
+     */
+    private void flush() {
+        scheduled.set(false); // updates posted from now on schedule another batch
+
+        Runnable event;
+        while ((event = events.poll()) != null)
+            event.run();
+        applyLatestValues();
+    }
+
+    /**
+     * Applies the latest values of the displayed numbers (on the event dispatch thread).
+     */
+    private void applyLatestValues() {
+        long countdown = this.countdown.getAndSet(NONE);
+        if (countdown != NONE) ui.setCountdown(countdown >>> 1, (countdown & 1) != 0);
+        long elapsed = this.elapsed.getAndSet(NONE);
+        if (elapsed != NONE) ui.setElapsed(elapsed);
+        for (int player = 0; player < freezes.length(); ++player) {
+            long freeze = freezes.getAndSet(player, NONE);
+            if (freeze != NONE) ui.setFreeze(player, freeze);
+            int score = scores.getAndSet(player, (int) NONE);
+            if (score != NONE) ui.setScore(player, score);
+        }
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        post(() -> ui.placeCard(card, slot));
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        post(() -> ui.removeCard(slot));
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        post(() -> ui.placeToken(player, slot));
+    }
+
+    @Override
+    public void removeTokens() {
+        post(ui::removeTokens);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        post(() -> ui.removeTokens(slot));
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        post(() -> ui.removeToken(player, slot));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        countdown.set(Math.max(millies, 0) << 1 | (warn ? 1 : 0));
+        schedule();
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        elapsed.set(Math.max(millies, 0));
+        schedule();
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        freezes.set(player, Math.max(millies, 0));
+        schedule();
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.set(player, score);
+        schedule();
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        post(() -> {
+            applyLatestValues();    // the final scores
+            ui.announceWinner(players);
+        });
+    }
+
+    /**
+     * Applies the pending updates before disposing of the wrapped user interface.
+     */
+    @Override
+    public void dispose() {
+        EventQueue.invokeLater(() -> {
+            disposed = true;
+            timer.stop();
+            flush();
+            ui.dispose();
+        });
+    }
+}
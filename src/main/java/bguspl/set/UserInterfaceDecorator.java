@@ -2,103 +2,177 @@ package bguspl.set;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+/**
+ * A user interface that logs every call before passing it on to the wrapped user interface (if any).
+ * The messages are only built if their level is logged: table changes at FINE, the timers at FINER (the countdown only
+ * once per second, although it is updated far more often during the warning), and the rest at INFO.
+ * Card, token, timer and freeze updates are also sampled: only one of every n calls of each kind is logged, as set in
+ * the configuration.
+ * The duration of every call (including the logging) is recorded in a histogram.
+ */
 public class UserInterfaceDecorator implements UserInterface {
 
     private final Logger logger;
     private final Util util;
     private final UserInterface ui;
-
-    public UserInterfaceDecorator(Logger logger, Util util, UserInterface ui) {
+    private final LatencyHistogram uiCalls;
+    private final Config config;
+
+    /**
+     * The seconds of the countdown last logged.
+     */
+    private volatile long loggedCountdownSeconds = -1;
+
+    /**
+     * The number of calls of each kind that could have been logged so far.
+     */
+    private final AtomicLong cardCalls = new AtomicLong();
+    private final AtomicLong tokenCalls = new AtomicLong();
+    private final AtomicLong timerCalls = new AtomicLong();
+    private final AtomicLong freezeCalls = new AtomicLong();
+
+    public UserInterfaceDecorator(Logger logger, Config config, Util util, UserInterface ui, LatencyHistogram uiCalls) {
         this.ui = ui;
+        this.uiCalls = uiCalls;
         this.logger = logger;
+        this.config = config;
         this.util = util;
 
         if (ui == null) System.out.println("Running without a user interface. Check logs.");
     }
 
+    /**
+     * @param level - the level of the call's message.
+     * @param calls - the counter of the calls of its kind.
+     * @param every - log one of every this many calls of its kind.
+     * @return - true iff the call should be logged (the calls are only counted while their level is logged).
+     */
+    private boolean sampled(Level level, AtomicLong calls, int every) {
+        return logger.isLoggable(level) && (every <= 1 || calls.getAndIncrement() % every == 0);
+    }
+
     @Override
     public void placeCard(int card, int slot) {
-        logger.severe("placing card " + card + " in slot " + slot);
+        long start = System.nanoTime();
+        if (sampled(Level.FINE, cardCalls, config.logSampleCards))
+            logger.fine(() -> "placing card " + card + " in slot " + slot);
         util.spin();
         if (ui != null) ui.placeCard(card, slot);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void removeCard(int slot) {
-        logger.severe("removing card from slot " + slot);
+        long start = System.nanoTime();
+        if (sampled(Level.FINE, cardCalls, config.logSampleCards))
+            logger.fine(() -> "removing card from slot " + slot);
         util.spin();
         if (ui != null) ui.removeCard(slot);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        logger.severe("player " + (player + 1) + " placing token on slot " + slot);
+        long start = System.nanoTime();
+        if (sampled(Level.FINE, tokenCalls, config.logSampleTokens))
+            logger.fine(() -> "player " + (player + 1) + " placing token on slot " + slot);
         util.spin();
         if (ui != null) ui.placeToken(player, slot);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void removeTokens() {
-        logger.severe("removing all tokens");
+        long start = System.nanoTime();
+        if (sampled(Level.FINE, tokenCalls, config.logSampleTokens)) logger.fine("removing all tokens");
         util.spin();
         if (ui != null) ui.removeTokens();
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void removeTokens(int slot) {
-        logger.severe("removing tokens from slot " + slot);
+        long start = System.nanoTime();
+        if (sampled(Level.FINE, tokenCalls, config.logSampleTokens))
+            logger.fine(() -> "removing tokens from slot " + slot);
         util.spin();
         if (ui != null) ui.removeTokens(slot);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        logger.severe("removing player " + (player + 1) + " token from slot " + slot);
+        long start = System.nanoTime();
+        if (sampled(Level.FINE, tokenCalls, config.logSampleTokens))
+            logger.fine(() -> "removing player " + (player + 1) + " token from slot " + slot);
         util.spin();
         if (ui != null) ui.removeToken(player, slot);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void setCountdown(long millies, boolean warn) {
-        if (!warn || millies % 1000L == 0L)
-            logger.severe("updating countdown to " + millies);
+        long start = System.nanoTime();
+        long seconds = millies / 1000L;
+        if (seconds != loggedCountdownSeconds) {
+            loggedCountdownSeconds = seconds;
+            if (sampled(Level.FINER, timerCalls, config.logSampleTimers))
+                logger.finer(() -> "updating countdown to " + millies);
+        }
         if (ui != null) ui.setCountdown(millies, warn);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void setElapsed(long millies) {
-        logger.severe("updating elapsed time to " + millies);
+        long start = System.nanoTime();
+        if (sampled(Level.FINER, timerCalls, config.logSampleTimers))
+            logger.finer(() -> "updating elapsed time to " + millies);
         util.spin();
         if (ui != null) ui.setElapsed(millies);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void setFreeze(int player, long millies) {
-        logger.severe("setting player " + (player + 1) + " freeze to " + millies);
+        long start = System.nanoTime();
+        if (sampled(Level.FINER, freezeCalls, config.logSampleFreezes))
+            logger.finer(() -> "setting player " + (player + 1) + " freeze to " + millies);
         util.spin();
         if (ui != null) ui.setFreeze(player, millies);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void setScore(int player, int score) {
-        logger.severe("setting player " + (player + 1) + " score to " + score);
+        long start = System.nanoTime();
+        logger.info(() -> "setting player " + (player + 1) + " score to " + score);
         util.spin();
         if (ui != null) ui.setScore(player, score);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void announceWinner(int[] players) {
-        List<String> winners = Arrays.stream(players).mapToObj(id -> "player " + (id + 1)).collect(Collectors.toList());
-        logger.severe("announcing winner(s): " + String.join(", ", winners));
+        long start = System.nanoTime();
+        logger.info(() -> {
+            List<String> winners = Arrays.stream(players).mapToObj(id -> "player " + (id + 1)).collect(Collectors.toList());
+            return "announcing winner(s): " + String.join(", ", winners);
+        });
         if (ui != null) ui.announceWinner(players);
+        uiCalls.record(System.nanoTime() - start);
     }
 
     @Override
     public void dispose() {
-        logger.severe("disposing of user interface elements");
+        long start = System.nanoTime();
+        logger.info("disposing of user interface elements");
         if (ui != null) ui.dispose();
+        uiCalls.record(System.nanoTime() - start);
     }
 }
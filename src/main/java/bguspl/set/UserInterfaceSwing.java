@@ -4,8 +4,6 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileNotFoundException;
-import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
@@ -102,31 +100,18 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     private class GamePanel extends JLayeredPane {
 
-        private final Image emptyCard;
-        private final Image[] deck;
+        private final CardImages cardImages;
         private final Image[][] grid;
         private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
 
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
-        }
-
         private GamePanel() {
 
             setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
 
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
-
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
+            // the card images are loaded when first drawn (and some in advance, in the background)
+            cardImages = CardImages.of(config);
+            cardImages.prewarm();
 
             grid = new Image[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
@@ -134,7 +119,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             for (int row = 0; row < config.rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
+                    grid[row][column] = cardImages.emptyCard();
 
                     // init the JLabel selection overlay
                     tokenText[row][column] = new JLabel("");
@@ -148,27 +133,31 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             }
         }
 
+        // Repaints only the cell of the slot
+        private void repaintCell(int row, int column) {
+            repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
+        }
+
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
+            grid[row][column] = cardImages.card(card);
+            repaintCell(row, column);
         }
 
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            grid[row][column] = cardImages.emptyCard();
+            repaintCell(row, column);
         }
 
         private void placeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
+            if (playerTokens[player][row][column]) return;
             playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            updateTokenText(row, column);
         }
 
         private void removeTokens() {
@@ -179,35 +168,47 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private void removeTokens(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
+            boolean removed = false;
             for (int player = 0; player < playerTokens.length; player++) {
+                removed |= playerTokens[player][row][column];
                 playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
             }
+            if (removed) updateTokenText(row, column);
         }
 
         private void removeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
+            if (!playerTokens[player][row][column]) return;
             playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            updateTokenText(row, column);
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
+        // Rebuilds the token text of a slot, after its tokens changed
+        private void updateTokenText(int row, int column) {
+            StringBuilder text = new StringBuilder();
             for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
+                if (playerTokens[player][row][column]) {
+                    if (text.length() > 0) text.append(", ");
+                    text.append(config.playerNames[player]);
+                }
             }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+            tokenText[row][column].setText(text.toString());
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
+            // draw the card images of the cells that need painting
+            Rectangle clip = g.getClipBounds();
+            int firstRow = 0, lastRow = config.rows - 1, firstColumn = 0, lastColumn = config.columns - 1;
+            if (clip != null) {
+                firstRow = Math.max(clip.y / config.cellHeight, 0);
+                lastRow = Math.min((clip.y + clip.height - 1) / config.cellHeight, config.rows - 1);
+                firstColumn = Math.max(clip.x / config.cellWidth, 0);
+                lastColumn = Math.min((clip.x + clip.width - 1) / config.cellWidth, config.columns - 1);
+            }
+            for (int row = firstRow; row <= lastRow; row++)
+                for (int column = firstColumn; column <= lastColumn; column++)
                     g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
         }
     }
@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -35,11 +36,32 @@ public interface Util {
      * Finds and returns up to count sets in the given collection of cards.
      *
      * @param deck  - a collection of cards (may not include null objects).
-     * @param count - the maximum number of sets to find.
+     * @param count - the maximum number of sets to find (the first set is returned even if count is not positive).
      * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Visits the sets in the given collection of cards one at a time, in the same order as findSets finds them, until
+     * the visitor asks to stop.
+     *
+     * @param deck    - a collection of cards (may not include null objects).
+     * @param visitor - called with the card ids of each legal set, in ascending order, in an array that may be reused
+     *                for the next set (copy it to keep it); returns false to stop the search.
+     */
+    default void forEachSet(List<Integer> deck, Predicate<int[]> visitor) {
+        for (int[] set : findSets(deck, Integer.MAX_VALUE))
+            if (!visitor.test(set)) return;
+    }
+
+    /**
+     * Finds the card that completes the given cards to a legal set.
+     *
+     * @param cards - an array of config.featureSize - 1 distinct card ids.
+     * @return - the card that forms a legal set with the given cards, or -1 if there is no such card (or more than one).
+     */
+    int completeSet(int[] cards);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -1,9 +1,14 @@
 package bguspl.set;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 /**
@@ -11,10 +16,81 @@ import java.util.stream.IntStream;
  */
 public class UtilImpl implements Util {
 
+    /**
+     * The largest deck for which the completing card table is precomputed (deckSize^2 shorts, about 9MB at this size).
+     */
+    private static final int MAX_COMPLETION_TABLE_DECK_SIZE = 2187;
+
+    /**
+     * The smallest collection of cards searched for sets in parallel, if enabled (smaller ones are not worth splitting).
+     */
+    private static final int MIN_PARALLEL_CARDS = 200;
+
     private final Config config;
 
+    /**
+     * For featureSize = 3: thirdCard[a * deckSize + b] is the card that completes cards a and b to a legal set.
+     * Null if the deck is too large or sets are not made of three cards.
+     */
+    private final short[] thirdCard;
+
+    /**
+     * The features of every card, one-hot encoded: feature i with value v sets bit (i * featureSize + v).
+     * Null if the encoding does not fit in a long.
+     */
+    private final long[] encodedFeatures;
+
+    /**
+     * The bits of a single feature in an encoded card.
+     */
+    private final long featureMask;
+
     public UtilImpl(Config config) {
         this.config = config;
+        this.thirdCard = config.featureSize == 3 && config.deckSize <= MAX_COMPLETION_TABLE_DECK_SIZE
+                ? buildCompletionTable() : null;
+        this.featureMask = (1L << config.featureSize) - 1;
+        this.encodedFeatures = config.featureSize * config.featureCount <= Long.SIZE ? encodeFeatures() : null;
+    }
+
+    private long[] encodeFeatures() {
+        long[] encoded = new long[config.deckSize];
+        int[] features = new int[config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card) {
+            cardToFeatures(card, features);
+            for (int i = 0; i < config.featureCount; ++i)
+                encoded[card] |= 1L << (i * config.featureSize + features[i]);
+        }
+        return encoded;
+    }
+
+    private short[] buildCompletionTable() {
+        int deckSize = config.deckSize;
+        short[] table = new short[deckSize * deckSize];
+        for (int a = 0; a < deckSize; ++a)
+            for (int b = a; b < deckSize; ++b) {
+                short c = (short) computeThirdCard(a, b);
+                table[a * deckSize + b] = c;
+                table[b * deckSize + a] = c;
+            }
+        return table;
+    }
+
+    /**
+     * For featureSize = 3: every feature of the third card is the one that makes the feature sum divisible by 3.
+     */
+    private int computeThirdCard(int a, int b) {
+        int card = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= 3) {
+            int featureA = a / weight % 3;
+            int featureB = b / weight % 3;
+            card += (6 - featureA - featureB) % 3 * weight;
+        }
+        return card;
+    }
+
+    private int thirdCard(int a, int b) {
+        return thirdCard != null ? thirdCard[a * config.deckSize + b] : computeThirdCard(a, b);
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -40,6 +116,11 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
+        if (config.featureSize == 3 && cards.length == 3)
+            return thirdCard(cards[0], cards[1]) == cards[2];
+        if (encodedFeatures != null)
+            return testEncodedSet(cards);
+
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -64,30 +145,234 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    /**
+     * A feature is sameSame iff the cards have a single distinct value in it, and butDifferent iff they have as many
+     * distinct values as there are cards. OR-ing the encoded cards leaves one bit per distinct value of every feature.
+     */
+    private boolean testEncodedSet(int[] cards) {
+        long union = 0;
+        for (int card : cards)
+            union |= encodedFeatures[card];
+
+        for (int i = 0; i < config.featureCount; ++i) {
+            int distinct = Long.bitCount(union >>> (i * config.featureSize) & featureMask);
+            if ((distinct == 1) == (distinct == cards.length)) return false;
+        }
+        return true;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        if (config.parallelSetSearch && cards.length >= MIN_PARALLEL_CARDS)
+            return findSetsInParallel(cards, Math.max(count, 1));
+
+        forEachSet(cards, set -> {
+            sets.add(set.clone());
+            return sets.size() < count;     // (the first set is found even if count is not positive)
+        });
+        return sets;
+    }
+
+    @Override
+    public void forEachSet(List<Integer> deck, Predicate<int[]> visitor) {
+        forEachSet(deck.stream().mapToInt(Integer::intValue).toArray(), visitor);
+    }
+
+    private void forEachSet(int[] cards, Predicate<int[]> visitor) {
+        int[] position = config.featureSize == 3 ? positions(cards) : null;
+        int[] set = new int[config.featureSize];
+        for (int first = 0; first < cards.length; ++first)
+            if (!forEachSetStartingAt(cards, position, first, set, visitor)) return;
+    }
+
+    /**
+     * Finds the sets starting at every card in parallel, and returns them in the same order as the sequential search.
+     * Once the sets starting at the first few cards are known to be enough, the search past them is cancelled.
+     */
+    List<int[]> findSetsInParallel(int[] cards, int count) {
+        int[] position = config.featureSize == 3 ? positions(cards) : null;
+        ParallelSearch search = new ParallelSearch(cards, position, count);
+        ForkJoinPool.commonPool().invoke(search.new Task(0, cards.length));
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        for (int first = 0; first < search.cutoff && sets.size() < count; ++first)
+            for (int[] set : search.sets.get(first)) {
+                sets.add(set);
+                if (sets.size() >= count) break;
+            }
+        return sets;
+    }
+
+    private class ParallelSearch {
+        private final int[] cards;
+        private final int[] position;
+        private final int count;
+
+        /**
+         * The sets starting at each card (null until found), and the number of them (-1 until found).
+         */
+        private final AtomicReferenceArray<List<int[]>> sets;
+        private final int[] found;
+
+        /**
+         * The sets starting at the cards before prefix are found, and there are prefixSets of them.
+         */
+        private int prefix;
+        private int prefixSets;
+
+        /**
+         * The sets starting at the cards from cutoff on are not needed.
+         */
+        private volatile int cutoff;
+
+        ParallelSearch(int[] cards, int[] position, int count) {
+            this.cards = cards;
+            this.position = position;
+            this.count = count;
+            this.sets = new AtomicReferenceArray<>(cards.length);
+            this.found = new int[cards.length];
+            Arrays.fill(found, -1);
+            this.cutoff = cards.length;
+        }
+
+        private synchronized void done(int first, int setsFound) {
+            found[first] = setsFound;
+            while (prefix < cutoff && found[prefix] >= 0) {
+                prefixSets += found[prefix++];
+                if (prefixSets >= count) cutoff = prefix;
+            }
+        }
+
+        /**
+         * Searches the sets starting at the cards in [from, to), splitting the range in halves.
+         */
+        @SuppressWarnings("serial")     // never serialized
+        private class Task extends RecursiveAction {
+            private final int from;
+            private final int to;
+
+            Task(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (from >= cutoff) return;
+                if (to - from > 1) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Task(from, middle), new Task(middle, to));
+                    return;
+                }
+                List<int[]> setsFound = new ArrayList<>();
+                forEachSetStartingAt(cards, position, from, new int[config.featureSize], set -> {
+                    setsFound.add(set.clone());
+                    return setsFound.size() < count;
+                });
+                sets.set(from, setsFound);
+                done(from, setsFound.size());
+            }
+        }
+    }
+
+    /**
+     * The position of each card in the given cards (-1 if none).
+     */
+    private int[] positions(int[] cards) {
+        int[] position = new int[config.deckSize];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < cards.length; ++i)
+            position[cards[i]] = i;
+        return position;
+    }
+
+    /**
+     * Visits the sets whose first card (in the order of the given cards) is cards[first], in the lexicographic order
+     * of their positions.
+     *
+     * @param position - the position of each card in the given cards, for sets of three cards (null otherwise).
+     * @param set      - the array passed to the visitor.
+     * @return - false iff the visitor stopped the search.
+     */
+    private boolean forEachSetStartingAt(int[] cards, int[] position, int first, int[] set, Predicate<int[]> visitor) {
+        return position != null ? forEachTripleStartingAt(cards, position, first, set, visitor)
+                : forEachCombinationStartingAt(cards, first, set, visitor);
+    }
+
+    /**
+     * Tests every combination of featureSize cards that starts at the given card.
+     */
+    private boolean forEachCombinationStartingAt(int[] deckCards, int first, int[] set, Predicate<int[]> visitor) {
+        int n = deckCards.length;
         int r = config.featureSize;
+        if (first + r > n) return true;
         int[] combination = new int[r];
+        int[] cards = new int[r]; // reused for every combination
 
         for (int i = 0; i < r; ++i)
-            combination[i] = i;
+            combination[i] = first + i;
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
+        while (true) {
+            for (int i = 0; i < r; ++i)
+                cards[i] = deckCards[combination[i]];
             if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+                System.arraycopy(cards, 0, set, 0, r);
+                Arrays.sort(set);
+                if (!visitor.test(set)) return false;
             }
 
-            // generate next combination in lexicographic order
+            // generate next combination in lexicographic order (keeping the first card)
             int t = r - 1;
             while (t != 0 && combination[t] == n - r + t) --t;
+            if (t == 0) return true;
             combination[t]++;
             for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
         }
-        return sets;
+    }
+
+    /**
+     * Finds sets of three cards by looking up the third card of every pair instead of testing every triple.
+     */
+    private boolean forEachTripleStartingAt(int[] cards, int[] position, int i, int[] set, Predicate<int[]> visitor) {
+        int n = cards.length;
+        for (int j = i + 1; j < n - 1; ++j) {
+            int k = position[thirdCard(cards[i], cards[j])];
+            if (k > j) {
+                set[0] = cards[i];
+                set[1] = cards[j];
+                set[2] = cards[k];
+                Arrays.sort(set);
+                if (!visitor.test(set)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Every feature of the completing card is the common value if the cards agree on it, or the only value missing if
+     * they all differ in it (and there is no completing card otherwise).
+     */
+    @Override
+    public int completeSet(int[] cards) {
+        if (cards.length < 2 || cards.length != config.featureSize - 1) return -1;
+        if (config.featureSize == 3) {
+            int card = thirdCard(cards[0], cards[1]);
+            return card == cards[0] ? -1 : card;
+        }
+
+        int card = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= config.featureSize) {
+            int values = 0;
+            for (int other : cards)
+                values |= 1 << (other / weight % config.featureSize);
+            int distinct = Integer.bitCount(values);
+            if (distinct == 1) card += Integer.numberOfTrailingZeros(values) * weight;
+            else if (distinct == cards.length) card += Integer.numberOfTrailingZeros(~values) * weight;
+            else return -1;
+        }
+        return card == cards[0] ? -1 : card;
     }
 
     public void spin() {
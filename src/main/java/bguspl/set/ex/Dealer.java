@@ -1,11 +1,15 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.Scheduler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -31,6 +35,11 @@ public class Dealer implements Runnable {
      */
     private final List<Integer> deck;
 
+    /**
+     * The cards still in the game (in the deck or on the table), and the sets among them.
+     */
+    private final RemainingSets remainingSets;
+
     /**
      * True iff game should be terminated due to an external event.
      */
@@ -40,23 +49,51 @@ public class Dealer implements Runnable {
      * The time when the dealer needs to reshuffle the deck due to turn timeout.
      */
     private long reshuffleTime = Long.MAX_VALUE;
+
+    /**
+     * The time of the last reshuffle or collected set, for the elapsed time display when there is no countdown.
+     */
+    private long lastActionTime;
     
     // holds the current time
     //private long currTime = 0;
 
     private LinkedBlockingQueue<Player> playersWithSets;
 
-    public boolean removingCards;
+    /**
+     * The players' pending claims by player id: the System.nanoTime() at which the claim was made, or NO_CLAIM.
+     */
+    private final AtomicLongArray claimTimes;
+
+    private static final long NO_CLAIM = Long.MIN_VALUE;
+
+    // the claims taken on a wakeup with their claim times, and a bitmask (by player id) of those not yet decided
+    private final List<Player> claims = new ArrayList<>();
+    private final long[] claimStamps;
+    private final long[] undecidedClaims;
 
     private final long second = 1000;
 
+    /**
+     * The interval between countdown display updates while the warning (with milliseconds) is displayed.
+     */
+    private final long warningTickMillis = 10;
+
+    private final Random random = new Random();
+
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
         deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        playersWithSets = new LinkedBlockingQueue<Player>(players.length);
-        removingCards = true;
+        remainingSets = new RemainingSets(env.util, env.config.featureSize, env.config.featureCount);
+        playersWithSets = new LinkedBlockingQueue<Player>();    // may hold claims withdrawn since they were made
+        claimTimes = new AtomicLongArray(players.length);
+        for (int id = 0; id < players.length; ++id)
+            claimTimes.set(id, NO_CLAIM);
+        claimStamps = new long[players.length];
+        undecidedClaims = new long[(players.length + 63) / 64];
+        shuffle();
     }
 
     /**
@@ -65,10 +102,9 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-        for(Player player:players){
-            Thread playerThread = new Thread(player);
-            playerThread.start();
-        }
+        Scheduler.Task[] playerThreads = new Scheduler.Task[players.length];
+        for (int i = 0; i < players.length; ++i)
+            playerThreads[i] = env.scheduler.start(players[i], "player-" + players[i].id);
         while (!shouldFinish()) {
             placeCardsOnTable();
             timerLoop();
@@ -76,14 +112,15 @@ public class Dealer implements Runnable {
             removeAllCardsFromTable();
         }
         announceWinners();
+        terminatePlayers(playerThreads);
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * The inner loop of the dealer thread that runs as long as the countdown did not time out.
+     * The inner loop of the dealer thread that runs as long as the countdown did not time out (and a set is left).
      */
     private void timerLoop() {
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!shouldFinish() && env.clock.currentTimeMillis() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
             updateTimerDisplay(false);
             removeCardsFromTable();
@@ -100,6 +137,20 @@ public class Dealer implements Runnable {
             player.terminate();
         }
         terminate = true;
+        synchronized (this) { notifyAll(); }
+    }
+
+    /**
+     * Terminates the players in reverse order to the order they were created in, and waits for their threads to end.
+     */
+    private void terminatePlayers(Scheduler.Task[] playerThreads) {
+        for (int i = players.length - 1; i >= 0; --i) {
+            players[i].terminate();
+            playerThreads[i].interrupt();
+            try {
+                playerThreads[i].join();
+            } catch (InterruptedException ignored) {}
+        }
     }
 
     /**
@@ -108,7 +159,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !remainingSets.hasSets();
     }
 
     /**
@@ -117,44 +168,59 @@ public class Dealer implements Runnable {
     private void removeCardsFromTable() {
         // TODO implement
         
-        if (!playersWithSets.isEmpty()){
-            Player plyr = playersWithSets.poll();
-            int[] cardArr = plyr.getCardArray();
-            if (plyr.maybeSet){
-                if (env.util.testSet(cardArr)){
-                    plyr.noSet();
-                    removeCardsFromSet(cardArr);
-                    plyr.shouldGetAPoint = true;    // Add a point to the players score
-                    placeCardsOnTable();
-                }
-                else{
-                    plyr.shouldGetAPenalty = true;
-                    plyr.noSet();
-                }
-            
+        if (playersWithSets.drainTo(claims) == 0) return;
+        // each pending claim is taken once (even if its player claimed again before the previous claim was taken),
+        // and the claims are decided first come first served
+        claims.removeIf(plyr -> (claimStamps[plyr.id] = claimTimes.getAndSet(plyr.id, NO_CLAIM)) == NO_CLAIM);
+        claims.sort((plyr1, plyr2) -> Long.signum(claimStamps[plyr1.id] - claimStamps[plyr2.id]));
+        env.metrics.claims.add(claims.size());
+
+        // only the sets collected below remove cards, so the claimed cards are read once, before any is decided
+        int[][] claimedCards = new int[claims.size()][];
+        for (int i = 0; i < claims.size(); ++i){
+            int id = claims.get(i).id;
+            claimedCards[i] = claims.get(i).getCardArray();
+            undecidedClaims[id >> 6] |= 1L << id;
+        }
+        for (int i = 0; i < claims.size(); ++i){
+            Player plyr = claims.get(i);
+            if ((undecidedClaims[plyr.id >> 6] & 1L << plyr.id) == 0)
+                continue;   // withdrawn, since one of its tokens was removed with the cards of an earlier set
+            undecidedClaims[plyr.id >> 6] &= ~(1L << plyr.id);
+            if (!plyr.maybeSet || claimedCards[i].length != env.config.featureSize){
+                plyr.noSet();   // the player removed one of the tokens meanwhile
+            }
+            else if (env.util.testSet(claimedCards[i])){
+                plyr.noSet();
+                removeCardsFromSet(claimedCards[i]);
+                plyr.notifyVerdict(true);    // Add a point to the players score
+                env.metrics.validSets.increment();
+                env.metrics.claimToVerdict.record(System.nanoTime() - claimStamps[plyr.id]);
+            }
+            else{
+                plyr.noSet();
+                plyr.notifyVerdict(false);
+                env.metrics.penalties.increment();
+                env.metrics.claimToVerdict.record(System.nanoTime() - claimStamps[plyr.id]);
             }
         }
+        claims.clear();     // the table is refilled once for all the sets collected (by the caller)
     }
 
     // Removes cards and tokens from the table.
     private void removeCardsFromSet(int[] cards){
-        removingCards = true;
         for (int card : cards){
+            remainingSets.collect(card);
             int slot = table.cardToSlot[card];
-            table.removeCard(slot);
-            env.ui.removeTokens(slot);
-            removeCardsFromOtherPlayers(slot);
+            withdrawSets(table.removeCard(slot));     // together with the tokens on it
         }
-        removingCards = false;
     }
 
-    // Removes the cards from the players actions array.
-    private void removeCardsFromOtherPlayers(int slot){
-        for (Player plyr : players){
-            if (plyr.isInActionsRemoveSlot(slot)){
-                plyr.noSet();
-                playersWithSets.remove(plyr);
-            }
+    // Withdraws the sets of the players whose tokens were removed (the owners come from the slot's token bitmask).
+    private void withdrawSets(int[] tokenOwners){
+        for (int id : tokenOwners){
+            players[id].noSet();
+            undecidedClaims[id >> 6] &= ~(1L << id);    // claims not taken yet are left with too few tokens
         }
     }
 
@@ -164,34 +230,131 @@ public class Dealer implements Runnable {
     private void placeCardsOnTable() {
         // TODO implement
         
-        int numOfCards = table.countCards();
-        if (numOfCards < 12 & !deck.isEmpty()) {
-            Random rand = new Random();
-            shuffle();
-            while(!deck.isEmpty() & numOfCards < 12){      // As long as there are cards in the deck or a slot not empty
-                int slot = rand.nextInt(env.config.tableSize);
-                if(table.slotToCard[slot] == null & !deck.isEmpty()){
-                    table.placeCard(deck.remove(0), slot);
-                    ++numOfCards;
+        if (table.countEmptySlots() > 0 && !deck.isEmpty()) {
+            long start = System.nanoTime();
+            // the deck is shuffled already, so the cards are drawn from its end, into the empty slots in random order
+            int[] emptySlots = table.emptySlots();
+            int placed = 0;
+            if (env.config.turnTimeoutMillis <= 0 && !table.hasSets()) {
+                // without a countdown there must always be a set on the table, so the cards completing one go first
+                int[] setPositions = findCardsCompletingSet(emptySlots.length);
+                if (setPositions != null) {
+                    Arrays.sort(setPositions);  // taken from the end, so the positions still to take do not move
+                    for (int i = setPositions.length - 1; i >= 0; --i)
+                        placeInRandomSlot(takeFromDeck(setPositions[i]), emptySlots, placed++);
                 }
             }
+            while (placed < emptySlots.length && !deck.isEmpty())
+                placeInRandomSlot(deck.remove(deck.size() - 1), emptySlots, placed++);
             //currTime = System.currentTimeMillis();
-            
+            env.metrics.refill.record(System.nanoTime() - start);
             updateTimerDisplay(true);
-            removingCards = false;
         }
-        
+        if (env.config.turnTimeoutMillis <= 0 && !table.hasSets())
+            reshuffleTime = env.clock.currentTimeMillis();    // no set can be dealt into the empty slots
+    }
+
+    // Takes the card at the given position out of the deck, moving the last card of the (shuffled) deck into its place.
+    private int takeFromDeck(int position){
+        int last = deck.remove(deck.size() - 1);
+        return position == deck.size() ? last : deck.set(position, last);
+    }
+
+    // Places the card in one of the empty slots from index placed on, chosen at random.
+    private void placeInRandomSlot(int card, int[] emptySlots, int placed){
+        int j = placed + random.nextInt(emptySlots.length - placed);
+        int slot = emptySlots[j];
+        emptySlots[j] = emptySlots[placed];
+        withdrawSets(table.placeCard(card, slot));     // the owners of any tokens the card displaced
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Finds deck cards that complete a set together with cards on the table, using as few deck cards as possible.
+     * Each candidate is the completion of featureSize - 1 chosen cards, so a refill makes at most
+     * (tableSize + deckSize)^(featureSize - 1) completion queries.
+     *
+     * @param maxCards - the most deck cards that can be placed.
+     * @return - the positions in the deck of the cards to place, or null if no set can be completed with at most
+     *           maxCards of them.
+     */
+    private int[] findCardsCompletingSet(int maxCards) {
+        int[] tableCards = Arrays.stream(table.slotToCard).filter(card -> card != Table.NONE).toArray();
+        int[] deckCards = deck.stream().mapToInt(Integer::intValue).toArray();
+        int[] deckPositions = new int[env.config.deckSize];
+        Arrays.fill(deckPositions, Table.NONE);
+        for (int i = 0; i < deckCards.length; ++i)
+            deckPositions[deckCards[i]] = i;
+        int[] chosen = new int[env.config.featureSize - 1];
+        int mostFromDeck = Math.min(maxCards, env.config.featureSize);
+        for (int fromDeck = 1; fromDeck <= mostFromDeck; ++fromDeck) {
+            int fromTable = env.config.featureSize - fromDeck;
+            if (fromTable > tableCards.length) continue;
+            int[] setCards = completeSet(chosen, 0, fromTable, tableCards, deckCards, 0, deckPositions);
+            if (setCards != null) return Arrays.stream(setCards).map(card -> deckPositions[card]).toArray();
+        }
+        return null;
+    }
+
+    // Chooses the first fromTable cards from the table and the rest from the deck, in increasing position order from
+    // index from, and returns the chosen deck cards together with the deck card completing them to a set (if any).
+    private int[] completeSet(int[] chosen, int count, int fromTable, int[] tableCards, int[] deckCards, int from,
+                              int[] deckPositions){
+        if (count == chosen.length) {
+            int last = env.util.completeSet(chosen);
+            if (last < 0 || deckPositions[last] == Table.NONE) return null;
+            int[] setCards = Arrays.copyOfRange(chosen, fromTable, chosen.length + 1);
+            setCards[setCards.length - 1] = last;
+            return setCards;
+        }
+        int[] cards = count < fromTable ? tableCards : deckCards;
+        for (int i = from; i < cards.length; ++i) {
+            chosen[count] = cards[i];
+            int next = count + 1 == fromTable ? 0 : i + 1;
+            int[] setCards = completeSet(chosen, count + 1, fromTable, tableCards, deckCards, next, deckPositions);
+            if (setCards != null) return setCards;
+        }
+        return null;
+    }
+
+    /**
+     * Sleep until a player claims a set, the countdown display needs to change or the reshuffle time is reached.
      */
     private void sleepUntilWokenOrTimeout() {
-        // TODO implement
+        long wakeupTime = nextTimerTick();
         try {
-            synchronized (this) { wait(10); }
+            synchronized (this) {
+                if (wakeupTime == Long.MAX_VALUE) {
+                    // no deadline (and no display to update): only a claim or termination wakes the dealer up
+                    while (!terminate && playersWithSets.isEmpty())
+                        env.clock.waitOn(this, 0);
+                    return;
+                }
+                long timeout = wakeupTime - env.clock.currentTimeMillis();
+                while (!terminate && playersWithSets.isEmpty() && timeout > 0) {
+                    env.clock.waitOn(this, timeout);
+                    timeout = wakeupTime - env.clock.currentTimeMillis();
+                }
+            }
         } catch (InterruptedException ignored) {}
-        
+    }
+
+    /**
+     * Computes when the countdown display next changes: every whole second, and every few milliseconds once the
+     * warning is displayed. Without a countdown, the elapsed time display changes every whole second, and the
+     * display is left empty in the mode without one.
+     *
+     * @return - the time of the next countdown display update (never after the reshuffle time).
+     */
+    private long nextTimerTick() {
+        long now = env.clock.currentTimeMillis();
+        if (env.config.turnTimeoutMillis < 0) return reshuffleTime;
+        if (env.config.turnTimeoutMillis == 0)
+            return Math.min(now + second - (now - lastActionTime) % second, reshuffleTime);
+        long remaining = reshuffleTime - now;
+        if (remaining <= env.config.turnTimeoutWarningMillis)
+            return Math.min(now + Math.max(warningTickMillis, env.clock.resolutionMillis()), reshuffleTime);
+        long untilNextSecond = remaining % second + 1;
+        return now + Math.min(untilNextSecond, remaining - env.config.turnTimeoutWarningMillis);
     }
 
     /**
@@ -200,14 +363,20 @@ public class Dealer implements Runnable {
     private void updateTimerDisplay(boolean reset) {
         //TODO implement
 
+        if (env.config.turnTimeoutMillis <= 0) {
+            // no countdown: the dealer reshuffles only when no set can be dealt (see placeCardsOnTable)
+            long now = env.clock.currentTimeMillis();
+            if (reset) {
+                reshuffleTime = Long.MAX_VALUE;
+                lastActionTime = now;
+            }
+            if (env.config.turnTimeoutMillis == 0) env.ui.setElapsed(now - lastActionTime);
+            return;
+        }
         if (reset){
-            env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-            try {
-                Thread.sleep(second);
-            } catch (InterruptedException e) {}
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis ;
+            reshuffleTime = env.clock.currentTimeMillis() + env.config.turnTimeoutMillis ;
         }
-        env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis(), 0) , reshuffleTime - System.currentTimeMillis() <= env.config.turnTimeoutWarningMillis);
+        env.ui.setCountdown(Math.max(reshuffleTime - env.clock.currentTimeMillis(), 0) , reshuffleTime - env.clock.currentTimeMillis() <= env.config.turnTimeoutWarningMillis);
     }
 
     /**
@@ -215,17 +384,18 @@ public class Dealer implements Runnable {
      */
     private void removeAllCardsFromTable() {
         // TODO implement
-        removingCards = true;
-
+        long start = System.nanoTime();
         env.ui.removeTokens();
         for (int slot = 0; slot <= table.slotToCard.length-1; ++slot){
-            if (table.slotToCard[slot] != null){
+            if (table.slotToCard[slot] != Table.NONE){
                 deck.add(table.slotToCard[slot]);
-                table.removeCard(slot);
-                removeCardsFromOtherPlayers(slot);
+                withdrawSets(table.removeCard(slot));
             }
             
         }
+        shuffle();  // once per reshuffle, for all the refills until the next one
+        env.metrics.reshuffles.increment();
+        env.metrics.reshuffle.record(System.nanoTime() - start);
     }
 
     /**
@@ -255,16 +425,17 @@ public class Dealer implements Runnable {
     }
 
     private void shuffle(){
-        Collections.shuffle(deck);
+        Collections.shuffle(deck, random);
     }
 
     public synchronized void addPlayersWithSet(Player player){
+            claimTimes.set(player.id, System.nanoTime());
             playersWithSets.add(player);
-            
+            notifyAll();    // wake the dealer up to check the set
     }
 
     public boolean isInPlayersWithSets(Player player){
-        return playersWithSets.contains(player);
+        return claimTimes.get(player.id) != NO_CLAIM;
     }
 
     // for test purposes only
@@ -272,6 +443,11 @@ public class Dealer implements Runnable {
         removeAllCardsFromTable();
     }
 
+    // for test purposes only
+    public void removeCardsTest(){
+        removeCardsFromTable();
+    }
+
     // for test purposes only
     public void placeCardsTest(){
         placeCardsOnTable();
@@ -0,0 +1,119 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of key presses (slots) from a single producer (the input thread or the AI thread) to a single
+ * consumer (the player thread), without locks.
+ * The consumer is unparked whenever a key press is added, so it can park while there is nothing to do. When the queue
+ * is full, the producer either drops the key press or parks until the consumer makes room, according to the policy.
+ *
+ * @inv 0 <= tail - head <= capacity
+ */
+class InputQueue {
+
+    /**
+     * What the producer does when the queue is full.
+     */
+    enum OverflowPolicy {
+        /** drop the key press (for the input thread, which must never block) */
+        DROP,
+        /** wait until the consumer makes room (for the AI thread) */
+        BLOCK
+    }
+
+    /**
+     * The value returned by poll when the queue is empty.
+     */
+    static final int EMPTY = -1;
+
+    private final int[] slots;
+    private final OverflowPolicy policy;
+
+    /**
+     * The number of key presses taken (by the consumer) and added (by the producer) so far.
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The consumer thread (unparked when a key press is added) and the producer thread while it waits for room.
+     */
+    private volatile Thread consumer;
+    private volatile Thread waitingProducer;
+
+    InputQueue(int capacity, OverflowPolicy policy) {
+        this.slots = new int[capacity];
+        this.policy = policy;
+    }
+
+    /**
+     * Registers the calling thread as the consumer, to be unparked when key presses are added.
+     */
+    void setConsumer() {
+        consumer = Thread.currentThread();
+    }
+
+    /**
+     * Adds a key press, dropping it or waiting for room if the queue is full (according to the policy).
+     * Called by the producer only.
+     *
+     * @param slot - the slot of the key press.
+     * @return - true iff the key press was added (false if dropped, or if interrupted while waiting for room).
+     */
+    boolean add(int slot) {
+        while (!offer(slot)) {
+            if (policy == OverflowPolicy.DROP) return false;
+            waitingProducer = Thread.currentThread();
+            if (isFull()) LockSupport.park(this); // re-checked after publishing, so the consumer's unpark is not lost
+            waitingProducer = null;
+            if (Thread.currentThread().isInterrupted()) return false;
+        }
+        return true;
+    }
+
+    private boolean offer(int slot) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) return false;
+        slots[(int) (t % slots.length)] = slot;
+        tail.set(t + 1); // publishes the slot to the consumer
+        LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * Takes the oldest key press. Called by the consumer only.
+     *
+     * @return - the slot of the key press, or EMPTY if there is none.
+     */
+    int poll() {
+        long h = head.get();
+        if (h == tail.get()) return EMPTY;
+        int slot = slots[(int) (h % slots.length)];
+        head.set(h + 1); // frees the slot for the producer
+        wakeProducer();
+        return slot;
+    }
+
+    /**
+     * Drops all the waiting key presses. Called by the consumer only.
+     */
+    void clear() {
+        head.set(tail.get());
+        wakeProducer();
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    private boolean isFull() {
+        return tail.get() - head.get() == slots.length;
+    }
+
+    private void wakeProducer() {
+        Thread producer = waitingProducer;
+        if (producer != null) LockSupport.unpark(producer);
+    }
+}
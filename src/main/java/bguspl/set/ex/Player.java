@@ -1,10 +1,12 @@
 package bguspl.set.ex;
 
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 
 import bguspl.set.Env;
+import bguspl.set.Scheduler;
 
 /**
  * This class manages the players' threads and data
@@ -36,12 +38,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Scheduler.Task aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -58,17 +60,21 @@ public class Player implements Runnable {
      */
     private int score;
 
-    // Queue of players actions.
-    private PriorityQueue<Integer> actions;
-
     // Boolean if the player thinks he has a set
-    public boolean maybeSet;
+    public volatile boolean maybeSet;
+
+    // Boolean if the player is frozen (key presses are ignored)
+    private volatile boolean frozen;
+
+    // Key presses waiting for the player thread
+    private final InputQueue keyPresses;
 
-    // Boolean if the player diserves a point
-    public boolean shouldGetAPoint;
+    // The dealer's verdict on the player's set, waiting for the player thread
+    private final AtomicReference<Verdict> verdict = new AtomicReference<>();
 
-    //Boolean if the player diserves a penalty
-    public boolean shouldGetAPenalty;
+    private enum Verdict { POINT, PENALTY }
+
+    private final int maxKeyPresses = 3;
 
     private final long second = 1000;
 
@@ -87,10 +93,11 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
-        this.actions = new PriorityQueue<Integer>(3);
         this.maybeSet = false;
-        this.shouldGetAPoint = false;
-        this.shouldGetAPenalty = false;
+        this.frozen = false;
+        // the input thread must never block, while the AI waits until there is room for its key presses
+        this.keyPresses = new InputQueue(maxKeyPresses,
+                human ? InputQueue.OverflowPolicy.DROP : InputQueue.OverflowPolicy.BLOCK);
     }
 
     /**
@@ -99,13 +106,17 @@ public class Player implements Runnable {
     @Override
     public void run() {
         playerThread = Thread.currentThread();
+        keyPresses.setConsumer();
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + "starting.");
         if (!human) createArtificialIntelligence();
 
         while (!terminate) {
-            // TODO implement main player loop
-            point();
-            penalty();
+            Verdict nextVerdict = verdict.getAndSet(null);
+            int slot;
+            if (nextVerdict == Verdict.POINT) point();
+            else if (nextVerdict == Verdict.PENALTY) penalty();
+            else if ((slot = keyPresses.poll()) != InputQueue.EMPTY) handleKeyPress(slot);
+            else LockSupport.park(this);    // until a key press, a verdict or termination unparks the thread
         }
         if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
         // try { playerThread.join(); } catch (InterruptedException ignored) {}
@@ -118,7 +129,7 @@ public class Player implements Runnable {
      */
     private void createArtificialIntelligence() {
         // note: this is a very very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = env.scheduler.start(() -> {
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
                 // TODO implement player key press simulator
@@ -129,12 +140,11 @@ public class Player implements Runnable {
                 }
 
                 try {
-                    synchronized (this) { wait(second); }
+                    synchronized (this) { env.clock.waitOn(this, second); }
                 } catch (InterruptedException ignored) {}
             }
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
         }, "computer-" + id);
-        aiThread.start();
     }
 
     /**
@@ -143,7 +153,8 @@ public class Player implements Runnable {
     public void terminate() {
         // TODO implement
         terminate = true;
-        playerThread.interrupt();
+        if (aiThread != null) aiThread.interrupt();
+        LockSupport.unpark(playerThread);
     }
 
     /**
@@ -153,25 +164,37 @@ public class Player implements Runnable {
      */
     public void keyPressed(int slot) {
         // TODO implement
-        if (!shouldGetAPenalty & !shouldGetAPoint & !dealer.removingCards){
-            if (actions.size() <= 2 & !actions.contains(slot)){
-                table.placeToken(id, slot);
-                if (table.slotToCard[slot] != null){
-                    actions.add(slot);  
-                }
-               
-                if (actions.size() == 3){
-                    maybeSet = true;
-                    dealer.addPlayersWithSet(this);
-                }
-            }
-        
-            else if (actions.contains(slot)){
+        if (frozen) return;     // key presses are ignored while frozen
+        keyPresses.add(slot);
+    }
+
+    /**
+     * Called by the dealer when it has checked the player's set.
+     *
+     * @param legalSet - true iff the set was legal (the player gets a point), false if the player gets a penalty.
+     */
+    public void notifyVerdict(boolean legalSet) {
+        frozen = true;
+        verdict.set(legalSet ? Verdict.POINT : Verdict.PENALTY);
+        LockSupport.unpark(playerThread);
+    }
+
+    // Handles a key press on the player thread: places or removes a token
+    private void handleKeyPress(int slot) {
+        if (!frozen){
+            if (table.hasToken(id, slot)){
+                noSet();    // removing a token takes back the set given to the dealer
                 table.removeToken(id, slot);
-                actions.remove(slot);
+            }
+
+            // the tokens are kept by the table, which removes them (concurrently) together with collected cards
+            else if (table.countTokens(id) < env.config.featureSize && table.placeToken(id, slot)
+                    && table.countTokens(id) == env.config.featureSize){
+                maybeSet = true;
+                dealer.addPlayersWithSet(this);
             }
         }
-        
+
     }
 
     /**
@@ -182,11 +205,8 @@ public class Player implements Runnable {
      */
     public void point() {
         // TODO implement
-        if (shouldGetAPoint){
-            env.ui.setScore(id, ++score);
-            freezeAndCountSeconds(env.config.pointFreezeMillis);
-            shouldGetAPoint = false;
-        }
+        env.ui.setScore(id, ++score);
+        freeze(env.config.pointFreezeMillis);
     }
 
     /**
@@ -194,24 +214,28 @@ public class Player implements Runnable {
      */
     public void penalty() {
         // TODO implement
-        if (shouldGetAPenalty){
-           freezeAndCountSeconds(env.config.penaltyFreezeMillis);
-           shouldGetAPenalty = false;
-        }
-        
+        freeze(env.config.penaltyFreezeMillis);
+    }
+
+    // Freezes the player and drops the key presses made in the meantime
+    private void freeze(long millies){
+        frozen = true;
+        freezeAndCountSeconds(millies);
+        keyPresses.clear();
+        frozen = false;
     }
 
+    // Freezes the player, updating the display once per second (the display shows whole seconds)
     private void freezeAndCountSeconds(long millies){
-        env.ui.setFreeze(id, millies);
+        long freezeEnd = env.clock.currentTimeMillis() + millies;
         try {
-            Thread.sleep(second);
-        } catch (InterruptedException e) {}
-
-        long currTime = System.currentTimeMillis();
-        while(currTime - System.currentTimeMillis() + millies >= second){
-            env.ui.setFreeze(id, currTime - System.currentTimeMillis() + millies);
-        }
-        env.ui.setFreeze(id, -second);
+            for (long remaining = millies; remaining > 0; remaining = freezeEnd - env.clock.currentTimeMillis()) {
+                long untilNextSecond = remaining % second == 0 ? second : remaining % second;
+                env.ui.setFreeze(id, remaining - untilNextSecond + second);    // rounded up to whole seconds
+                env.clock.sleep(untilNextSecond);
+            }
+        } catch (InterruptedException ignored) {}   // terminated
+        env.ui.setFreeze(id, 0);
     }
 
     public int score() {
@@ -220,24 +244,21 @@ public class Player implements Runnable {
 
 
     public int[] getCardArray(){
-        Integer[] pqArr = actions.toArray(new Integer[3]);
-        int[] arr = new int[pqArr.length];
-        for (int i=0; i <= pqArr.length - 1; ++i){
-            arr[i] = table.slotToCard[pqArr[i]];
-        } 
-        return arr;
+        return table.tokenCards(id);
     }
 
     public void noSet(){
         maybeSet = false;
     }
 
-    public boolean isInActionsRemoveSlot(int slot){
-        return actions.remove(slot);
-        
+    // for test purposes only
+    public void handleKeyPressesTest(){
+        int slot;
+        while ((slot = keyPresses.poll()) != InputQueue.EMPTY)
+            handleKeyPress(slot);
     }
 
     public boolean actionsContainsSlot(int slot){
-        return actions.contains(slot);
+        return table.hasToken(id, slot);
     }
  }
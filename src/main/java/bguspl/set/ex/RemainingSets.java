@@ -0,0 +1,94 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+import java.util.BitSet;
+
+/**
+ * Keeps track of the cards still in the game (in the deck or on the table) and of the number of legal sets among them,
+ * so the dealer knows when no set is left without searching the deck.
+ * All the cards are in the game at first, and the number of sets in a full deck is known in advance: counting the
+ * sets as ordered tuples of cards, every feature is either the same in all cards (featureSize ways) or different in all
+ * of them (featureSize! ways), except for the tuples of a single card repeated. When a card is collected, only the sets
+ * it is part of are subtracted.
+ *
+ * @inv sets == the number of legal sets among the cards in remaining
+ */
+class RemainingSets {
+
+    private final Util util;
+
+    /**
+     * The cards still in the game.
+     */
+    private final BitSet remaining;
+
+    /**
+     * The number of legal sets among the remaining cards.
+     */
+    private long sets;
+
+    /**
+     * The combination being completed: the collected card, followed by featureSize - 2 of the remaining cards.
+     */
+    private final int[] partial;
+
+    RemainingSets(Util util, int featureSize, int featureCount) {
+        this.util = util;
+        long factorial = 1, tuples = 1, repeated = 1;
+        for (int i = 2; i <= featureSize; ++i)
+            factorial *= i;
+        for (int i = 0; i < featureCount; ++i) {
+            tuples *= featureSize + factorial;
+            repeated *= featureSize;
+        }
+        this.sets = (tuples - repeated) / factorial;
+        this.remaining = new BitSet((int) repeated);
+        remaining.set(0, (int) repeated);
+        this.partial = new int[Math.max(featureSize - 1, 1)];
+    }
+
+    /**
+     * Takes a card out of the game, together with the sets it is part of.
+     *
+     * @param card - the card collected by a player.
+     */
+    void collect(int card) {
+        if (!remaining.get(card)) return;
+        remaining.clear(card);
+        if (partial.length == 1) {      // sets of two cards: any other card completes one
+            sets -= remaining.cardinality();
+            return;
+        }
+        partial[0] = card;
+        sets -= countSetsOf(1, 0);
+    }
+
+    // Counts the sets of the remaining cards completing partial, whose other cards are chosen in ascending order from
+    private long countSetsOf(int chosen, int from) {
+        if (chosen == partial.length) {
+            int last = util.completeSet(partial);
+            return last > partial[chosen - 1] && remaining.get(last) ? 1 : 0;
+        }
+        long count = 0;
+        for (int other = remaining.nextSetBit(from); other >= 0; other = remaining.nextSetBit(other + 1)) {
+            partial[chosen] = other;
+            count += countSetsOf(chosen + 1, other + 1);
+        }
+        return count;
+    }
+
+    /**
+     * @return - true iff there is a legal set among the cards still in the game.
+     */
+    boolean hasSets() {
+        return sets > 0;
+    }
+
+    /**
+     * @return - the number of legal sets among the cards still in the game.
+     */
+    long countSets() {
+        return sets;
+    }
+}
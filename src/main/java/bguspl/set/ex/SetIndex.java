@@ -0,0 +1,119 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An index of all the legal sets among the cards on the table, kept up to date as cards are placed and removed.
+ * When a card is placed, the new sets are the ones it completes: every combination of featureSize - 2 of the other
+ * cards is completed by the card to featureSize - 1 cards, whose completing card (if on the table) closes a set.
+ * For sets of three cards, that is a single lookup per card on the table. Sets of two cards have no completing card
+ * to look up: every two distinct cards make a set (as in RemainingSets), so the placed card makes one with each card.
+ *
+ * @inv every set in sets consists of cards that are all in the index, and every legal set of such cards is in sets
+ */
+class SetIndex {
+
+    private final Util util;
+    private final int featureSize;
+
+    /**
+     * The cards in the index, and the position of each card in cards (-1 if not in the index).
+     */
+    private final int[] cards;
+    private final int[] position;
+    private int size;
+
+    /**
+     * The sets among the cards in the index, each sorted in ascending order.
+     */
+    private final List<int[]> sets = new ArrayList<>();
+
+    /**
+     * The combination being completed: the placed card, followed by featureSize - 2 of the other cards.
+     */
+    private final int[] partial;
+
+    SetIndex(Util util, int deckSize, int tableSize, int featureSize) {
+        this.util = util;
+        this.featureSize = featureSize;
+        this.cards = new int[tableSize];
+        this.position = new int[deckSize];
+        Arrays.fill(position, -1);
+        this.partial = new int[Math.max(featureSize - 1, 1)];
+    }
+
+    /**
+     * Adds a card and the sets it completes.
+     *
+     * @param card - the card placed on the table.
+     */
+    synchronized void add(int card) {
+        if (position[card] != -1) return;
+        if (featureSize == 2)
+            for (int i = 0; i < size; ++i)
+                sets.add(new int[]{Math.min(card, cards[i]), Math.max(card, cards[i])});
+        else {
+            partial[0] = card;
+            addSetsOf(1, 0);
+        }
+        position[card] = size;
+        cards[size++] = card;
+    }
+
+    // Chooses the rest of the combination from cards[from..size), and completes it once chosen
+    private void addSetsOf(int chosen, int from) {
+        if (chosen == partial.length) {
+            int last = util.completeSet(partial);
+            // each set is found once: with the cards in the order of their positions
+            if (last != -1 && position[last] != -1 && (chosen == 1 || position[last] > position[partial[chosen - 1]])) {
+                int[] set = Arrays.copyOf(partial, partial.length + 1);
+                set[partial.length] = last;
+                Arrays.sort(set);
+                sets.add(set);
+            }
+            return;
+        }
+        for (int i = from; i < size; ++i) {
+            partial[chosen] = cards[i];
+            addSetsOf(chosen + 1, i + 1);
+        }
+    }
+
+    /**
+     * Removes a card and the sets it is part of.
+     *
+     * @param card - the card removed from the table.
+     */
+    synchronized void remove(int card) {
+        int i = position[card];
+        if (i == -1) return;
+        int last = cards[--size];
+        cards[i] = last;
+        position[last] = i;
+        position[card] = -1;
+        if (!sets.isEmpty())
+            sets.removeIf(set -> Arrays.binarySearch(set, card) >= 0);
+    }
+
+    synchronized boolean hasSets() {
+        return !sets.isEmpty();
+    }
+
+    synchronized int countSets() {
+        return sets.size();
+    }
+
+    /**
+     * Performs an action for each set in the index.
+     *
+     * @param action - the action, given the cards of each set in ascending order (which it must not modify).
+     */
+    synchronized void forEach(Consumer<int[]> action) {
+        sets.forEach(action);
+    }
+}
@@ -4,12 +4,21 @@ import bguspl.set.Env;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class contains the data that is visible to the player.
  *
+ * Each slot has its own read/write lock: token operations on a slot share it, so players never block each other,
+ * while the dealer takes it exclusively to change the card in the slot. Cards are placed and removed by the dealer
+ * thread only, and the tokens of a player are placed and removed by its own thread only (and by the dealer, together
+ * with the card under them).
+ *
  * @inv slotToCard[x] == y iff cardToSlot[y] == x
  */
 public class Table {
@@ -20,27 +29,79 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * The value of an empty slot in slotToCard, and of a card that is not on the table in cardToSlot.
+     */
+    public static final int NONE = -1;
+
+    private static final int[] NO_PLAYERS = new int[0];
+
+    /**
+     * Mapping between a slot and the card placed in it (NONE if none).
+     */
+    protected final int[] slotToCard; // card per slot (if any)
+
+    /**
+     * Mapping between a card and the slot it is in (NONE if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
+
+    /**
+     * The empty slots, one bit per slot (64 slots per word).
+     */
+    private final long[] emptySlotMask;
+
+    /**
+     * The number of cards currently on the table.
+     */
+    private int cards;
+
+    /**
+     * A lock per slot: read-locked for token operations, write-locked for card operations on the slot.
+     */
+    private final ReentrantReadWriteLock[] slotLocks;
+
+    /**
+     * The token matrix, kept twice: the players with a token on each slot (playerWords words per slot, one bit per
+     * player) and the slots with a token of each player (slotWords words per player, one bit per slot).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    private final AtomicLongArray slotTokens;
+    private final AtomicLongArray playerTokens;
+    private final int playerWords;
+    private final int slotWords;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * The legal sets among the cards on the table.
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    private final SetIndex sets;
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (NONE if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (NONE if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
+        this.slotWords = (slotToCard.length + 63) / 64;
+        this.playerWords = (env.config.players + 63) / 64;
+        this.slotTokens = new AtomicLongArray(slotToCard.length * playerWords);
+        this.playerTokens = new AtomicLongArray(env.config.players * slotWords);
+        this.emptySlotMask = new long[slotWords];
+        this.slotLocks = new ReentrantReadWriteLock[slotToCard.length];
+        for (int slot = 0; slot < slotLocks.length; ++slot)
+            slotLocks[slot] = new ReentrantReadWriteLock();
+        this.sets = new SetIndex(env.util, cardToSlot.length, slotToCard.length, env.config.featureSize);
+        for (int slot = 0; slot < slotToCard.length; ++slot) {
+            if (slotToCard[slot] == NONE) emptySlotMask[slot >>> 6] |= 1L << slot;
+            else {
+                ++cards;
+                sets.add(slotToCard[slot]);
+            }
+        }
     }
 
     /**
@@ -50,15 +111,20 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, emptyMapping(env.config.tableSize), emptyMapping(env.config.deckSize));
+    }
+
+    private static int[] emptyMapping(int size) {
+        int[] mapping = new int[size];
+        Arrays.fill(mapping, NONE);
+        return mapping;
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        sets.forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -66,63 +132,183 @@ public class Table {
         });
     }
 
+    /**
+     * Checks whether there is a legal set among the cards on the table.
+     *
+     * @return - true iff there is at least one legal set on the table.
+     */
+    public boolean hasSets() {
+        return sets.hasSets();
+    }
+
+    /**
+     * Count the number of legal sets among the cards on the table.
+     *
+     * @return - the number of legal sets on the table.
+     */
+    public int countSets() {
+        return sets.countSets();
+    }
+
+    /**
+     * Performs an action for each legal set among the cards on the table.
+     *
+     * @param action - the action, given the cards of each set in ascending order (which it must not modify).
+     */
+    public void forEachSet(Consumer<int[]> action) {
+        sets.forEach(action);
+    }
+
     /**
      * Count the number of cards currently on the table.
      *
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
-                ++cards;
         return cards;
     }
 
     /**
-     * Places a card on the table in a grid slot.
+     * Count the number of empty slots on the table.
+     *
+     * @return - the number of slots without a card.
+     */
+    public int countEmptySlots() {
+        return slotToCard.length - cards;
+    }
+
+    /**
+     * Lists the empty slots.
+     *
+     * @return - the slots without a card, in ascending order.
+     */
+    public int[] emptySlots() {
+        int[] slots = new int[countEmptySlots()];
+        int found = 0;
+        for (int word = 0; word < emptySlotMask.length; ++word)
+            for (long bits = emptySlotMask[word]; bits != 0; bits &= bits - 1)
+                slots[found++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+        return slots;
+    }
+
+    /**
+     * Places a card on the table in a grid slot. If the card is moved from another slot, or replaces the card in the
+     * slot, the tokens on the card it moves from or replaces are removed.
      * @param card - the card id to place in the slot.
      * @param slot - the slot in which the card should be placed.
+     * @return     - the ids of the players whose tokens were removed, in ascending order.
      *
      * @post - the card placed is on the table, in the assigned slot.
      */
-    public void placeCard(int card, int slot) {
+    public int[] placeCard(int card, int slot) {
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        int[] owners = NO_PLAYERS;
+        int previousSlot = cardToSlot[card];
+        if (previousSlot != NONE && previousSlot != slot)
+            owners = removeCard(previousSlot, false);   // the card is moved
 
-        // TODO implement
-        env.ui.placeCard(card, slot);
+        Lock lock = slotLocks[slot].writeLock();
+        lock.lock();
+        try {
+            int previousCard = slotToCard[slot];
+            if (previousCard != NONE) {     // the card is replaced
+                cardToSlot[previousCard] = NONE;
+                sets.remove(previousCard);
+                env.ui.removeTokens(slot);
+                int[] replacedOwners = removeTokens(slot);
+                if (replacedOwners.length > 0)
+                    owners = IntStream.concat(Arrays.stream(owners), Arrays.stream(replacedOwners))
+                            .distinct().sorted().toArray();
+            }
+            else ++cards;
+
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+            emptySlotMask[slot >>> 6] &= ~(1L << slot);
+            sets.add(card);
+
+            env.ui.placeCard(card, slot);
+            return owners;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Removes a card from a grid slot on the table.
+     * Removes a card from a grid slot on the table, together with the tokens placed on it.
      * @param slot - the slot from which to remove the card.
+     * @return     - the ids of the players whose tokens were removed, in ascending order.
      */
-    public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
+    public int[] removeCard(int slot) {
+        return removeCard(slot, true);
+    }
+
+    private int[] removeCard(int slot, boolean delay) {
+        if (delay) try {
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        // TODO implement
-        env.ui.removeCard(slot);
-        slotToCard[slot] = null;
+        Lock lock = slotLocks[slot].writeLock();
+        lock.lock();
+        try {
+            env.ui.removeCard(slot);
+            env.ui.removeTokens(slot);  // while locked, so no token is placed on the slot in between
+            int card = slotToCard[slot];
+            if (card != NONE) {
+                cardToSlot[card] = NONE;
+                slotToCard[slot] = NONE;
+                sets.remove(card);
+                emptySlotMask[slot >>> 6] |= 1L << slot;
+                --cards;
+            }
+            return removeTokens(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Clears the tokens on a slot (while write-locked), returning their owners
+    private int[] removeTokens(int slot) {
+        int owners = 0;
+        for (int word = 0; word < playerWords; ++word)
+            owners += Long.bitCount(slotTokens.get(slot * playerWords + word));
+        int[] players = new int[owners];
+        if (owners == 0) return players;
+
+        owners = 0;
+        for (int word = 0; word < playerWords; ++word) {
+            for (long bits = slotTokens.getAndSet(slot * playerWords + word, 0); bits != 0; bits &= bits - 1) {
+                int player = (word << 6) + Long.numberOfTrailingZeros(bits);
+                playerTokens.getAndAccumulate(player * slotWords + (slot >>> 6), ~(1L << slot), (a, b) -> a & b);
+                players[owners++] = player;
+            }
+        }
+        return players;
     }
 
     /**
-     * Places a player token on a grid slot.
+     * Places a player token on a grid slot, if there is a card in it.
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return       - true iff the token was placed (false if there is no card, or the token is already there).
      */
-    public void placeToken(int player, int slot) {
-        // TODO implement
-        if (slotToCard[slot] != null){
+    public boolean placeToken(int player, int slot) {
+        Lock lock = slotLocks[slot].readLock();
+        lock.lock();
+        try {
+            if (slotToCard[slot] == NONE) return false;
+            long bit = 1L << player;
+            if ((slotTokens.getAndAccumulate(slot * playerWords + (player >>> 6), bit, (a, b) -> a | b) & bit) != 0)
+                return false;
+            playerTokens.getAndAccumulate(player * slotWords + (slot >>> 6), 1L << slot, (a, b) -> a | b);
             env.ui.placeToken(player, slot);
+            return true;
+        } finally {
+            lock.unlock();
         }
-        
     }
 
     /**
@@ -131,8 +317,55 @@ public class Table {
      * @param slot   - the slot from which to remove the token.
      * @return       - true iff a token was successfully removed.
      */
-    public void removeToken(int player, int slot) {  // Check if there is a token in the slot 
-        // TODO implement
-        env.ui.removeToken(player, slot);
+    public boolean removeToken(int player, int slot) {  // Check if there is a token in the slot 
+        Lock lock = slotLocks[slot].readLock();
+        lock.lock();
+        try {
+            long bit = 1L << player;
+            if ((slotTokens.getAndAccumulate(slot * playerWords + (player >>> 6), ~bit, (a, b) -> a & b) & bit) == 0)
+                return false;
+            playerTokens.getAndAccumulate(player * slotWords + (slot >>> 6), ~(1L << slot), (a, b) -> a & b);
+            env.ui.removeToken(player, slot);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a player has a token on a grid slot.
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return       - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (playerTokens.get(player * slotWords + (slot >>> 6)) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Counts the tokens of a player.
+     * @param player - the player.
+     * @return       - the number of slots with a token of the player.
+     */
+    public int countTokens(int player) {
+        int tokens = 0;
+        for (int word = 0; word < slotWords; ++word)
+            tokens += Long.bitCount(playerTokens.get(player * slotWords + word));
+        return tokens;
+    }
+
+    /**
+     * Finds the cards under the tokens of a player.
+     * @param player - the player.
+     * @return       - the cards on the slots with a token of the player, in ascending order of slots.
+     */
+    public int[] tokenCards(int player) {
+        int[] cards = new int[countTokens(player)];
+        int found = 0;
+        for (int word = 0; word < slotWords; ++word) {
+            for (long bits = playerTokens.get(player * slotWords + word); bits != 0 && found < cards.length; bits &= bits - 1)
+                cards[found++] = slotToCard[(word << 6) + Long.numberOfTrailingZeros(bits)];
+        }
+        return found == cards.length ? cards : Arrays.copyOf(cards, found);
     }
 }
@@ -0,0 +1,73 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncFileHandlerTest {
+
+    static class MockHandler extends Handler {
+        final List<String> messages = new ArrayList<>();
+        boolean closed;
+
+        @Override
+        public void publish(LogRecord record) {
+            messages.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    // Tests if the records are written in order, and all of them are written before the wrapped handler is closed
+    @Test
+    void close_WritesAllRecords() {
+        MockHandler target = new MockHandler();
+        AsyncFileHandler handler = new AsyncFileHandler(target);
+        for (int i = 0; i < 1000; ++i)
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        handler.close();
+
+        assertEquals(1000, target.messages.size());
+        for (int i = 0; i < 1000; ++i)
+            assertEquals("record " + i, target.messages.get(i));
+        assertTrue(target.closed);
+    }
+
+    // Tests if the records that don't fit in the buffer are dropped and reported
+    @Test
+    void publish_DropsRecordsWhenFull() throws InterruptedException {
+        MockHandler target = new MockHandler() {
+            @Override
+            public void publish(LogRecord record) {
+                try {
+                    Thread.sleep(20);     // a slow writer
+                } catch (InterruptedException ignored) {}
+                super.publish(record);
+            }
+        };
+        AsyncFileHandler handler = new AsyncFileHandler(target, 4);
+        for (int i = 0; i < 20; ++i)
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        handler.publish(new LogRecord(Level.INFO, "last"));
+        Thread.sleep(50);
+        handler.publish(new LogRecord(Level.INFO, "after"));
+        handler.close();
+
+        assertTrue(target.messages.size() < 22);
+        assertTrue(target.messages.stream().anyMatch(message -> message.endsWith("log records were dropped (the log writer fell behind)")));
+        assertEquals("after", target.messages.get(target.messages.size() - 1));
+    }
+}
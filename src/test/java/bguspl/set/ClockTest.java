@@ -0,0 +1,55 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClockTest {
+
+    // Tests if a wait far longer than the nanoseconds a long can hold lasts until notified, rather than overflowing
+    @Test
+    void waitOn_HugeMillisWaitsUntilNotified() throws InterruptedException {
+        Clock clock = new Clock(1000);
+        Object monitor = new Object();
+        boolean[] notified = new boolean[1];
+        Thread waiter = new Thread(() -> {
+            try {
+                synchronized (monitor) {
+                    while (!notified[0]) clock.waitOn(monitor, Long.MAX_VALUE / 2);
+                }
+            } catch (InterruptedException ignored) {}
+        });
+        long start = System.nanoTime();
+        waiter.start();
+        Thread.sleep(200);
+        assertTrue(waiter.isAlive());
+        synchronized (monitor) {
+            notified[0] = true;
+            monitor.notifyAll();
+        }
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+        assertTrue(System.nanoTime() - start >= 200_000_000L);
+    }
+
+    // Tests if a sleep far longer than the nanoseconds a long can hold does not end at once
+    @Test
+    void sleep_HugeMillisSleepsUntilInterrupted() throws InterruptedException {
+        Clock clock = new Clock(0.5);
+        boolean[] interrupted = new boolean[1];
+        Thread sleeper = new Thread(() -> {
+            try {
+                clock.sleep(Long.MAX_VALUE / 2);
+            } catch (InterruptedException e) {
+                interrupted[0] = true;
+            }
+        });
+        sleeper.start();
+        Thread.sleep(200);
+        assertTrue(sleeper.isAlive());
+        sleeper.interrupt();
+        sleeper.join(1000);
+        assertTrue(interrupted[0]);
+    }
+}
@@ -0,0 +1,55 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class GameServerTest {
+
+    // Tests if the results of every hosted game are recorded by the time awaitGames returns
+    @Test
+    void awaitGames_AllResultsRecorded() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "2");
+        properties.put("FeatureCount", "3");
+        properties.put("Rows", "1");
+        properties.put("Columns", "4");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        Logger logger = mock(Logger.class);
+        Config config = new Config(logger, properties);
+        GameServer server = new GameServer(logger, config, new UtilImpl(config), new Clock(1000),
+                new SchedulerPlatform(logger), 2);
+
+        int games = 3;
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicBoolean first = new AtomicBoolean(true);
+        CountDownLatch awaited = new CountDownLatch(1);
+        for (int i = 0; i < games; ++i)
+            assertTrue(server.host(game -> {
+                try {
+                    // the first game to end records its result only after awaitGames returns (if that is possible)
+                    if (first.getAndSet(false)) awaited.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+                recorded.incrementAndGet();
+            }, 10, TimeUnit.SECONDS) != null);
+        server.awaitGames();
+        int recordedBeforeAwaited = recorded.get();
+        awaited.countDown();
+
+        assertEquals(games, recordedBeforeAwaited);
+        assertEquals(0, server.games().size());
+    }
+}
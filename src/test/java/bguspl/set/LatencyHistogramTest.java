@@ -0,0 +1,71 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    // Tests if every value falls into a bucket whose range contains it, and the buckets follow each other
+    @Test
+    void bucket_ContainsValue() {
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; ++i) {
+            long value = random.nextLong() >>> 1 + random.nextInt(63);
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value <= LatencyHistogram.highestValue(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.highestValue(bucket - 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE)));
+    }
+
+    // Tests if the percentiles are within the precision of the buckets
+    @Test
+    void valueAtPercentile_WithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; ++value)
+            histogram.record(value * 1000);
+        assertEquals(100000, histogram.count());
+        assertEquals(100000000, histogram.max());
+        assertEquals(50000500, histogram.mean(), 1);
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            double expected = percentile * 1000000;
+            long value = histogram.valueAtPercentile(percentile);
+            assertTrue(value >= expected && value <= expected * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS),
+                    percentile + ": " + value);
+        }
+        assertEquals(100000000, histogram.valueAtPercentile(100));
+    }
+
+    // Tests if adding metrics adds their counters and the durations of their histograms
+    @Test
+    void add_AddsCountersAndDurations() {
+        Metrics total = new Metrics();
+        Metrics game = new Metrics();
+        total.claims.add(2);
+        total.refill.record(1000);
+        game.claims.add(3);
+        game.refill.record(5000);
+        total.add(game);
+        assertEquals(5, total.claims.sum());
+        assertEquals(2, total.refill.count());
+        assertEquals(3000, total.refill.mean(), 1);
+        assertEquals(5000, total.refill.max());
+        assertEquals(false, total.toText().contains("uiCall"));
+    }
+
+    // Tests if the exported metrics include the recorded values
+    @Test
+    void toJson_IncludesMetrics() {
+        Metrics metrics = new Metrics();
+        metrics.claims.add(3);
+        metrics.claimToVerdict.record(2000);
+        String json = metrics.toJson();
+        assertTrue(json.startsWith("{\"counters\":{\"claims\":3,"), json);
+        assertTrue(json.contains("\"claimToVerdict\":{\"count\":1,\"mean\":2.0,\"p50\":2.0,"), json);
+        assertTrue(metrics.toText().contains("claims           3"), metrics.toText());
+    }
+}
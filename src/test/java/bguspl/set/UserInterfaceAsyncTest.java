@@ -0,0 +1,68 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.awt.EventQueue;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class UserInterfaceAsyncTest {
+
+    // Waits until the scheduled batch (if any) is applied
+    private static void awaitBatch() throws Exception {
+        Thread.sleep(100);
+        EventQueue.invokeAndWait(() -> {});
+    }
+
+    // Tests if table changes are applied in order while the displayed numbers only show their latest value
+    @Test
+    void updatesAreBatched() throws Exception {
+        UserInterface ui = mock(UserInterface.class);
+        UserInterfaceAsync async = new UserInterfaceAsync(ui, 2);
+
+        // posted while the event dispatch thread is busy, so they all make it into the same batch
+        EventQueue.invokeAndWait(() -> {
+            async.placeCard(5, 0);
+            async.placeToken(1, 0);
+            for (long millis = 5000; millis >= 4000; millis -= 10)
+                async.setCountdown(millis, false);
+            async.setScore(0, 1);
+            async.setScore(0, 2);
+            async.removeTokens(0);
+            async.removeCard(0);
+        });
+        awaitBatch();
+
+        InOrder inOrder = inOrder(ui);
+        inOrder.verify(ui).placeCard(5, 0);
+        inOrder.verify(ui).placeToken(1, 0);
+        inOrder.verify(ui).removeTokens(0);
+        inOrder.verify(ui).removeCard(0);
+        inOrder.verify(ui).setScore(0, 2);    // after the table changes of the batch
+        verify(ui, times(1)).setCountdown(anyLong(), anyBoolean());
+        verify(ui).setCountdown(4000, false);
+        verify(ui, times(1)).setScore(anyInt(), anyInt());
+        verify(ui).setScore(0, 2);
+        verify(ui, never()).setFreeze(anyInt(), anyLong());
+
+        EventQueue.invokeAndWait(() -> {
+            async.setScore(1, 4);
+            async.announceWinner(new int[]{1});
+        });
+        async.setFreeze(1, 3000);
+        async.dispose();
+        awaitBatch();
+        inOrder.verify(ui).setScore(1, 4);    // before the winner is announced
+        inOrder.verify(ui).announceWinner(new int[]{1});
+        verify(ui).setFreeze(1, 3000);
+        verify(ui).dispose();
+    }
+}
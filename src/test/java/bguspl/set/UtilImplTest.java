@@ -0,0 +1,243 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UtilImplTest {
+
+    private static Config config(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LogLevel", "OFF");
+        return new Config(new MockLogger(), properties);
+    }
+
+    // Straightforward reference: a set of three cards has every feature either all same or all different
+    private static boolean referenceTestTriple(Config config, int a, int b, int c) {
+        for (int i = 0; i < config.featureCount; ++i, a /= config.featureSize, b /= config.featureSize, c /= config.featureSize) {
+            int fa = a % config.featureSize, fb = b % config.featureSize, fc = c % config.featureSize;
+            boolean same = fa == fb && fb == fc;
+            boolean different = fa != fb && fb != fc && fa != fc;
+            if (!same && !different) return false;
+        }
+        return true;
+    }
+
+    private static List<int[]> referenceFindTriples(Config config, List<Integer> deck) {
+        List<int[]> sets = new ArrayList<>();
+        for (int i = 0; i < deck.size(); ++i)
+            for (int j = i + 1; j < deck.size(); ++j)
+                for (int k = j + 1; k < deck.size(); ++k)
+                    if (referenceTestTriple(config, deck.get(i), deck.get(j), deck.get(k))) {
+                        int[] set = {deck.get(i), deck.get(j), deck.get(k)};
+                        Arrays.sort(set);
+                        sets.add(set);
+                    }
+        return sets;
+    }
+
+    private static void assertSameSets(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i)
+            assertArrayEquals(expected.get(i), actual.get(i));
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        Config config = config(3, 4);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        List<int[]> sets = new UtilImpl(config).findSets(deck, Integer.MAX_VALUE);
+        assertEquals(1080, sets.size());
+        assertSameSets(referenceFindTriples(config, deck), sets);
+    }
+
+    @Test
+    void findSets_ShuffledPartialDecks() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        Random random = new Random(7);
+        List<Integer> cards = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        for (int size : new int[]{0, 2, 3, 12, 15, 40}) {
+            Collections.shuffle(cards, random);
+            List<Integer> deck = new ArrayList<>(cards.subList(0, size));
+            assertSameSets(referenceFindTriples(config, deck), util.findSets(deck, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+        Config config = config(3, 3);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        List<int[]> sets = new UtilImpl(config).findSets(deck, 5);
+        assertSameSets(referenceFindTriples(config, deck).subList(0, 5), sets);
+    }
+
+    @Test
+    void findSets_NonPositiveCountFindsFirstSet() {
+        Config config = config(3, 3);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        assertSameSets(referenceFindTriples(config, deck).subList(0, 1), new UtilImpl(config).findSets(deck, 0));
+    }
+
+    // The original feature-by-feature check, used as the reference for every configuration
+    private static boolean referenceTestSet(Config config, int[] cards) {
+        int[][] features = new int[cards.length][config.featureCount];
+        for (int j = 0; j < cards.length; ++j)
+            for (int i = config.featureCount - 1, card = cards[j]; i >= 0; --i, card /= config.featureSize)
+                features[j][i] = card % config.featureSize;
+
+        for (int i = 0; i < config.featureCount; ++i) {
+            boolean sameSame = true, butDifferent = true;
+            for (int j = 1; j < features.length; ++j)
+                if (features[0][i] != features[j][i]) sameSame = false;
+            for (int j = 0; j < features.length; ++j)
+                for (int k = j + 1; k < features.length; ++k)
+                    if (features[j][i] == features[k][i]) butDifferent = false;
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    @Test
+    void testSet_MatchesReferenceForAllConfigs() {
+        int[][] configs = {{3, 4}, {3, 2}, {3, 6}, {2, 5}, {4, 3}, {5, 2}, {4, 4}};
+        Random random = new Random(11);
+
+        for (int[] sizes : configs) {
+            Config config = config(sizes[0], sizes[1]);
+            Util util = new UtilImpl(config);
+            for (int round = 0; round < 20000; ++round) {
+                // mostly featureSize cards, sometimes other lengths and repeated cards
+                int length = round % 10 == 0 ? 1 + random.nextInt(config.featureSize + 1) : config.featureSize;
+                int[] cards = new int[length];
+                for (int j = 0; j < length; ++j)
+                    cards[j] = round % 7 == 0 && j > 0 ? cards[j - 1] : random.nextInt(config.deckSize);
+                assertEquals(referenceTestSet(config, cards), util.testSet(cards), Arrays.toString(cards));
+            }
+
+            // every completed combination must be a set
+            for (int[] set : util.findSets(IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList()), 50))
+                assertEquals(true, referenceTestSet(config, set));
+        }
+    }
+
+    @Test
+    void findSets_FeatureSizeFour() {
+        Config config = config(4, 2);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        List<int[]> expected = new ArrayList<>();
+        for (int a = 0; a < deck.size(); ++a)
+            for (int b = a + 1; b < deck.size(); ++b)
+                for (int c = b + 1; c < deck.size(); ++c)
+                    for (int d = c + 1; d < deck.size(); ++d)
+                        if (referenceTestSet(config, new int[]{a, b, c, d}))
+                            expected.add(new int[]{a, b, c, d});
+        assertSameSets(expected, util.findSets(deck, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void findSetsInParallel_MatchesSequential() {
+        Config config = config(3, 5);
+        UtilImpl util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(13));
+        List<int[]> expected = referenceFindTriples(config, deck);
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+
+        assertSameSets(expected, util.findSets(deck, Integer.MAX_VALUE));
+        for (int count : new int[]{1, 7, 500, expected.size()})
+            assertSameSets(expected.subList(0, count), util.findSetsInParallel(cards, count));
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "5");
+        properties.put("ParallelSetSearch", "True");
+        UtilImpl parallelUtil = new UtilImpl(new Config(new MockLogger(), properties));
+        assertSameSets(expected, parallelUtil.findSets(deck, Integer.MAX_VALUE));
+        assertSameSets(expected.subList(0, 1), parallelUtil.findSets(deck, 0));
+    }
+
+    @Test
+    void findSetsInParallel_FeatureSizeFour() {
+        Config config = config(4, 4);
+        UtilImpl util = new UtilImpl(config);
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+
+        List<int[]> expected = new ArrayList<>();
+        for (int a = 0; a < cards.length && expected.size() < 100; ++a)
+            for (int b = a + 1; b < cards.length && expected.size() < 100; ++b)
+                for (int c = b + 1; c < cards.length && expected.size() < 100; ++c)
+                    for (int d = c + 1; d < cards.length && expected.size() < 100; ++d)
+                        if (referenceTestSet(config, new int[]{a, b, c, d}))
+                            expected.add(new int[]{a, b, c, d});
+        assertSameSets(expected, util.findSetsInParallel(cards, 100));
+    }
+
+    @Test
+    void forEachSet_VisitsSetsInOrder() {
+        for (int[] sizes : new int[][]{{3, 4}, {4, 3}}) {
+            Config config = config(sizes[0], sizes[1]);
+            Util util = new UtilImpl(config);
+            List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(deck, new Random(17));
+            List<int[]> expected = util.findSets(deck.subList(0, 60), Integer.MAX_VALUE);
+
+            List<int[]> visited = new ArrayList<>();
+            util.forEachSet(deck.subList(0, 60), set -> visited.add(set.clone()));
+            assertSameSets(expected, visited);
+
+            visited.clear();
+            util.forEachSet(deck.subList(0, 60), set -> visited.add(set.clone()) && visited.size() < 3);
+            assertSameSets(expected.subList(0, 3), visited);
+        }
+    }
+
+    @Test
+    void completeSet_CompletesEverySet() {
+        for (int[] sizes : new int[][]{{3, 4}, {4, 2}, {5, 2}}) {
+            Config config = config(sizes[0], sizes[1]);
+            Util util = new UtilImpl(config);
+            List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+            for (int[] set : util.findSets(deck, Integer.MAX_VALUE))
+                assertEquals(set[set.length - 1], util.completeSet(Arrays.copyOf(set, set.length - 1)), Arrays.toString(set));
+
+            // cards that agree on some features and differ in others but not all can't be completed
+            Random random = new Random(5);
+            for (int round = 0; round < 2000; ++round) {
+                int[] cards = random.ints(config.featureSize - 1, 0, config.deckSize).toArray();
+                int card = util.completeSet(cards);
+                if (card != -1) {
+                    int[] set = Arrays.copyOf(cards, config.featureSize);
+                    set[cards.length] = card;
+                    assertEquals(true, referenceTestSet(config, set) && IntStream.of(set).distinct().count() == set.length);
+                }
+            }
+        }
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
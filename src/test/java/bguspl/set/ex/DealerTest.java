@@ -1,9 +1,12 @@
 package bguspl.set.ex;
 
+import bguspl.set.Clock;
 import bguspl.set.Config;
 import bguspl.set.Env;
+import bguspl.set.SchedulerPlatform;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 // import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +14,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 // import static org.junit.jupiter.api.Assertions.assertTrue;
 // import static org.mockito.ArgumentMatchers.eq;
 // import static org.mockito.Mockito.verify;
-//import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 
 import java.util.Properties;
 
@@ -43,8 +49,8 @@ class DealerTest {
     Player[] players = new Player[2];
     // Player player0;
     // Player player1;
-    Integer[] slotToCard;
-    Integer[] cardToSlot;
+    int[] slotToCard;
+    int[] cardToSlot;
 
     // void assertInvariants() {
     //     assertTrue(player0.id >= 0);
@@ -71,8 +77,10 @@ class DealerTest {
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
         Env env = new Env(logger, config, ui, util);
         table = new Table(env, slotToCard, cardToSlot);
@@ -104,18 +112,103 @@ class DealerTest {
         assertEquals(true, dealer.isInPlayersWithSets(player1));
     }
 
+    // Tests if the dealer sleeps until woken when there is neither a countdown nor an elapsed time to display
+    @Test
+    void runWithoutTimerDisplayDoesNotSpinTest() throws InterruptedException{
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TurnTimeoutSeconds", "-1");
+        Config config = new Config(logger, properties);
+        AtomicInteger waits = new AtomicInteger();
+        AtomicInteger timedWaits = new AtomicInteger();
+        Clock clock = new Clock(1){
+            @Override
+            public void waitOn(Object monitor, long millis) throws InterruptedException{
+                waits.incrementAndGet();
+                if (millis > 0) timedWaits.incrementAndGet();
+                super.waitOn(monitor, millis);
+            }
+        };
+        Env env = new Env(logger, config, ui, new UtilImpl(config), clock, new SchedulerPlatform(logger));
+        Dealer dealer = new Dealer(env, new Table(env), new Player[0]);
+
+        Thread dealerThread = new Thread(dealer);
+        dealerThread.start();
+        Thread.sleep(500);
+        assertEquals(true, dealerThread.isAlive());
+        assertEquals(true, waits.get() <= 2, "the dealer woke up " + waits.get() + " times");
+        assertEquals(0, timedWaits.get());
+        dealer.terminate();
+        dealerThread.join(1000);
+        assertEquals(false, dealerThread.isAlive());
+    }
+
+    // Tests if overlapping claims are decided in the order they were made, withdrawing the later one
+    @Test
+    void removeCardsFirstClaimWinsTest(){
+        when(util.testSet(any())).thenReturn(true);
+        for (int slot = 0; slot < 5; ++slot)
+            table.placeCard(slot, slot);
+        for (int slot = 2; slot < 5; ++slot)
+            table.placeToken(1, slot);
+        for (int slot = 0; slot < 3; ++slot)
+            table.placeToken(0, slot);
+        player1.maybeSet = true;
+        dealer.addPlayersWithSet(player1);
+        player0.maybeSet = true;
+        dealer.addPlayersWithSet(player0);
+
+        dealer.removeCardsTest();
+        for (int slot = 0; slot < 5; ++slot)
+            assertEquals(slot < 2, slotToCard[slot] != Table.NONE);
+        assertEquals(2, table.countTokens(0));
+        assertEquals(false, player0.maybeSet);
+        assertEquals(false, dealer.isInPlayersWithSets(player0));
+        assertEquals(false, dealer.isInPlayersWithSets(player1));
+    }
+
     // Tests if the dealer places cards and removes cards successfully
     @Test
     void placeAndRemoveAllCardsOnTableTest(){
         
         dealer.placeCardsTest();
         for (int i = 0; i < slotToCard.length; ++i){
-            assertEquals(true, slotToCard[i] != null);
+            assertEquals(true, slotToCard[i] != Table.NONE);
         }
         
         dealer.removeAllCardsTest();
         for (int i = 0; i < slotToCard.length; ++i){
-            assertEquals(null, slotToCard[i]);
+            assertEquals(Table.NONE, slotToCard[i]);
+        }
+    }
+
+    // Tests if the dealer always deals a set when there is no countdown, even onto a table with room for one set only
+    @Test
+    void placeCardsWithoutCountdownDealsSetTest(){
+        Properties properties = new Properties();
+        properties.put("Rows", "1");
+        properties.put("Columns", "3");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TurnTimeoutSeconds", "0");
+        properties.put("PlayerKeys1", "81,87,69");
+        properties.put("PlayerKeys2", "85,73,79");
+        Config config = new Config(logger, properties);
+        int[] slotToCard = new int[config.tableSize];
+        int[] cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        Table table = new Table(env, slotToCard, cardToSlot);
+
+        for (int round = 0; round < 10; ++round){
+            Dealer dealer = new Dealer(env, table, players);
+            dealer.placeCardsTest();
+            assertEquals(true, env.util.testSet(slotToCard));
+            dealer.removeAllCardsTest();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputQueueTest {
+
+    // Starts a producer that adds the slot to the queue, recording 1 if it was added and 0 if not
+    private static Thread startProducer(InputQueue queue, int slot, AtomicInteger added) {
+        Thread producer = new Thread(() -> added.set(queue.add(slot) ? 1 : 0));
+        producer.start();
+        return producer;
+    }
+
+    // Waits until the thread parks
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    // Tests if the key presses are taken in the order they were added, also once the queue wraps around
+    @Test
+    void poll_KeyPressesInOrder() {
+        InputQueue queue = new InputQueue(3, InputQueue.OverflowPolicy.DROP);
+        assertTrue(queue.isEmpty());
+        for (int round = 0; round < 3; ++round) {
+            for (int slot = 0; slot < 3; ++slot)
+                assertTrue(queue.add(round * 10 + slot));
+            for (int slot = 0; slot < 3; ++slot)
+                assertEquals(round * 10 + slot, queue.poll());
+            assertEquals(InputQueue.EMPTY, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    // Tests if key presses are dropped while the queue is full, and accepted again once there is room
+    @Test
+    void add_DropPolicyDropsWhenFull() {
+        InputQueue queue = new InputQueue(2, InputQueue.OverflowPolicy.DROP);
+        assertTrue(queue.add(1));
+        assertTrue(queue.add(2));
+        assertFalse(queue.add(3));
+        assertEquals(1, queue.poll());
+        assertTrue(queue.add(4));
+        assertEquals(2, queue.poll());
+        assertEquals(4, queue.poll());
+        assertEquals(InputQueue.EMPTY, queue.poll());
+    }
+
+    // Tests if the producer waits while the queue is full, until the consumer takes a key press
+    @Test
+    void add_BlockPolicyWaitsForPoll() throws InterruptedException {
+        InputQueue queue = new InputQueue(2, InputQueue.OverflowPolicy.BLOCK);
+        queue.add(1);
+        queue.add(2);
+        AtomicInteger added = new AtomicInteger(-1);
+        Thread producer = startProducer(queue, 3, added);
+        awaitParked(producer);
+
+        assertEquals(1, queue.poll());
+        producer.join(5000);
+        assertEquals(1, added.get());
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+    }
+
+    // Tests if the producer waits while the queue is full, until the consumer clears it
+    @Test
+    void add_BlockPolicyWaitsForClear() throws InterruptedException {
+        InputQueue queue = new InputQueue(2, InputQueue.OverflowPolicy.BLOCK);
+        queue.add(1);
+        queue.add(2);
+        AtomicInteger added = new AtomicInteger(-1);
+        Thread producer = startProducer(queue, 3, added);
+        awaitParked(producer);
+
+        queue.clear();
+        producer.join(5000);
+        assertEquals(1, added.get());
+        assertEquals(3, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    // Tests if an interrupted producer stops waiting for room without adding its key press
+    @Test
+    void add_BlockPolicyInterrupted() throws InterruptedException {
+        InputQueue queue = new InputQueue(1, InputQueue.OverflowPolicy.BLOCK);
+        queue.add(1);
+        AtomicInteger added = new AtomicInteger(-1);
+        Thread producer = startProducer(queue, 2, added);
+        awaitParked(producer);
+
+        producer.interrupt();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertEquals(0, added.get());
+        assertEquals(1, queue.poll());
+        assertEquals(InputQueue.EMPTY, queue.poll());
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -36,8 +37,9 @@ class PlayerTest {
     @Mock
     private Logger logger;
 
-    Integer[] slotToCard;
-    Integer[] cardToSlot;
+    int[] slotToCard;
+    int[] cardToSlot;
+    Env env;
 
     void assertInvariants() {
         assertTrue(player.id >= 0);
@@ -62,10 +64,12 @@ class PlayerTest {
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
-        Env env = new Env(logger, config, ui, util);
+        env = new Env(logger, config, ui, util);
         table = new Table(env, slotToCard, cardToSlot);
         player = new Player(env, dealer, table, 0, false);
         assertInvariants();
@@ -85,9 +89,6 @@ class PlayerTest {
         // calculate the expected score for later
         int expectedScore = player.score() + 1;
 
-        // Make it so player knows it should get a point
-        player.shouldGetAPoint = true;
-
         // call the method we are testing
         player.point();
 
@@ -121,13 +122,11 @@ class PlayerTest {
 
         placingSomeCardsOnTable();
 
-        // Make it so the dealer doesn't stop the player from placing tokens; 
-        dealer.removingCards = false;
-
         // The Player placing tokens on 3 slots
         player.keyPressed(0);
         player.keyPressed(2);
         player.keyPressed(4);
+        player.handleKeyPressesTest();
         
         // Check if the players actions size is the right size after 3 key presses
         assertEquals(3, player.getCardArray().length);
@@ -149,13 +148,11 @@ class PlayerTest {
 
         placingSomeCardsOnTable(); 
         
-        // Make it so the dealer doesn't stop the player from placing tokens; 
-        dealer.removingCards = false;
-
          // The Player placing tokens on 3 slots
          player.keyPressed(1);
          player.keyPressed(3);
          player.keyPressed(2);
+         player.handleKeyPressesTest();
 
          // Checks if the slots we pressed are in actions
          assertEquals(true,  player.actionsContainsSlot(1));
@@ -164,6 +161,7 @@ class PlayerTest {
 
         // The Player placing tokens on 1 slot
         player.keyPressed(0);
+        player.handleKeyPressesTest();
 
         // Checks if the players actions contain the next slot pressed after he already placed 3 tokens
         assertEquals(false,  player.actionsContainsSlot(0));
@@ -175,13 +173,11 @@ class PlayerTest {
 
         placingSomeCardsOnTable(); 
         
-        // Make it so the dealer doesn't stop the player from placing tokens; 
-        dealer.removingCards = false;
-
          // The Player placing tokens on 3 slots
          player.keyPressed(1);
          player.keyPressed(3);
          player.keyPressed(2);
+         player.handleKeyPressesTest();
 
          // Checks if the slots we pressed are in actions
          assertEquals(true,  player.actionsContainsSlot(1));
@@ -190,10 +186,32 @@ class PlayerTest {
 
         // The Player pressig one of the slots again
         player.keyPressed(3);
+        player.handleKeyPressesTest();
 
         // Checks if the players actions contain the same slot pressed after he already placed 3 tokens
         assertEquals(true,  player.actionsContainsSlot(1));
          assertEquals(false,  player.actionsContainsSlot(3));
          assertEquals(true,  player.actionsContainsSlot(2));
     }
-}
\ No newline at end of file
+
+    // Tests that the player thread wakes up for the dealer's verdict and awards the point
+    @Test
+    void verdictWakesPlayerThreadTest() throws InterruptedException {
+        Player human = new Player(env, dealer, table, 1, true);
+        Thread thread = new Thread(human);
+        thread.start();
+
+        human.notifyVerdict(true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (human.score() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        human.terminate();
+        thread.interrupt();
+        thread.join(5000);
+
+        assertEquals(1, human.score());
+        assertEquals(false, thread.isAlive());
+        verify(ui).setScore(eq(human.id), eq(1));
+    }
+}
@@ -0,0 +1,43 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RemainingSetsTest {
+
+    // Tests if the number of sets is right for a full deck and after collecting cards, for different card sizes
+    @Test
+    void countSets_MatchesFindSets() {
+        for (int[] sizes : new int[][]{{3, 4}, {3, 3}, {4, 2}, {2, 4}}) {
+            Properties properties = new Properties();
+            properties.put("FeatureSize", Integer.toString(sizes[0]));
+            properties.put("FeatureCount", Integer.toString(sizes[1]));
+            Config config = new Config(new TableTest.MockLogger(), properties);
+            Util util = new UtilImpl(config);
+            RemainingSets remainingSets = new RemainingSets(util, config.featureSize, config.featureCount);
+            List<Integer> cards = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(cards, new Random(sizes[0] * 10 + sizes[1]));
+
+            List<Integer> remaining = new ArrayList<>(cards);
+            for (int card : cards) {
+                assertEquals(util.findSets(remaining, Integer.MAX_VALUE).size(), remainingSets.countSets());
+                assertEquals(remainingSets.countSets() > 0, remainingSets.hasSets());
+                remainingSets.collect(card);
+                remaining.remove((Integer) card);
+            }
+            assertEquals(0, remainingSets.countSets());
+        }
+    }
+}
@@ -4,20 +4,28 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -32,34 +40,33 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        table.placeCard(3, 1);
+        table.placeCard(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
         for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
+            table.placeCard(i, i);
         }
     }
 
     private void placeSomeCardsAndAssert() {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
     }
 
     @Test
@@ -102,7 +109,7 @@ class TableTest {
         fillSomeSlots();
         placeSomeCardsAndAssert();
         table.removeCard(2);
-        assertEquals(null, slotToCard[2]);
+        assertEquals(Table.NONE, slotToCard[2]);
     }
 
     // Tests if the tble can remove a card when all the slots are filled
@@ -112,7 +119,154 @@ class TableTest {
         fillAllSlots();
         placeSomeCardsAndAssert();
         table.removeCard(2);
-        assertEquals(null, slotToCard[2]);
+        assertEquals(Table.NONE, slotToCard[2]);
+    }
+
+    // Tests if placing a card over another card takes the replaced card off the table
+    @Test
+    void placeCard_OccupiedSlotReplacesCard() {
+
+        fillAllSlots();
+        placeSomeCardsAndAssert();
+        assertEquals(Table.NONE, cardToSlot[2]);
+        assertEquals(slotToCard.length, table.countCards());
+    }
+
+    // Tests if moving or replacing a card removes the tokens on it and reports their owners
+    @Test
+    void placeCard_MovedOrReplacedCardRemovesTokens() {
+
+        fillSomeSlots();
+        table.placeToken(0, 1);
+        table.placeToken(1, 2);
+        assertArrayEquals(new int[]{0, 1}, table.placeCard(3, 2));   // card 3 moves from slot 1 and replaces card 5
+        assertEquals(Table.NONE, slotToCard[1]);
+        assertEquals(3, slotToCard[2]);
+        assertEquals(0, table.countTokens(0));
+        assertEquals(0, table.countTokens(1));
+        assertArrayEquals(new int[0], table.placeCard(4, 1));
+    }
+
+    // Tests if the empty slots are counted and found in order
+    @Test
+    void emptySlots_SomeSlotsAreFilled() {
+
+        int slotsFilled = fillSomeSlots();
+        assertEquals(slotToCard.length - slotsFilled, table.countEmptySlots());
+        assertArrayEquals(new int[]{0, 3}, table.emptySlots());
+    }
+
+    // Tests if a token is placed only on a slot with a card, and only once
+    @Test
+    void placeToken_SomeSlotsAreFilled() {
+
+        fillSomeSlots();
+        assertEquals(false, table.placeToken(0, 0));
+        assertEquals(true, table.placeToken(0, 1));
+        assertEquals(false, table.placeToken(0, 1));
+        assertEquals(true, table.placeToken(1, 1));
+        assertEquals(true, table.hasToken(0, 1));
+        assertEquals(false, table.hasToken(0, 0));
+        assertEquals(1, table.countTokens(0));
+    }
+
+    // Tests if removing a card removes the tokens on it and reports their owners
+    @Test
+    void removeCard_RemovesTokens() {
+
+        fillSomeSlots();
+        table.placeToken(0, 1);
+        table.placeToken(0, 2);
+        table.placeToken(1, 1);
+        assertArrayEquals(new int[]{0, 1}, table.removeCard(1));
+        assertEquals(false, table.hasToken(1, 1));
+        assertArrayEquals(new int[]{5}, table.tokenCards(0));
+        assertEquals(true, table.removeToken(0, 2));
+        assertEquals(0, table.countTokens(0));
+    }
+
+    // Tests if tokens placed and removed while the dealer removes and places the card under them never outlive the card,
+    // and the tokens of each player are counted consistently with the slots they are on
+    @Test
+    void placeToken_RacesWithRemoveCard() throws InterruptedException {
+
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger errors = new AtomicInteger();
+        Thread[] players = new Thread[2];
+        for (int i = 0; i < players.length; ++i) {
+            int player = i;
+            players[i] = new Thread(() -> {
+                Random random = new Random(player);
+                while (!done.get()) {
+                    int slot = random.nextInt(2);
+                    if (random.nextBoolean()) table.placeToken(player, slot);
+                    else table.removeToken(player, slot);
+                    if (table.countTokens(player) > 2) errors.incrementAndGet();
+                }
+            });
+            players[i].start();
+        }
+
+        for (int round = 0; round < 20000; ++round) {
+            table.removeCard(0);
+            for (int player = 0; player < players.length; ++player)
+                if (table.hasToken(player, 0)) errors.incrementAndGet();    // no token survives on the emptied slot
+            table.placeCard(round % 2 == 0 ? 2 : 0, 0);
+        }
+        done.set(true);
+        for (Thread player : players)
+            player.join();
+
+        assertEquals(0, errors.get());
+        for (int slot = 0; slot < 2; ++slot) {
+            // the owners found by slot agree with the tokens found by player
+            int onSlot = slot;
+            int[] owners = IntStream.range(0, players.length).filter(player -> table.hasToken(player, onSlot)).toArray();
+            assertArrayEquals(owners, table.removeCard(slot));
+        }
+        for (int player = 0; player < players.length; ++player) {
+            assertEquals(0, table.countTokens(player));
+            assertEquals(0, table.tokenCards(player).length);
+        }
+    }
+
+    // Tests if the sets on the table are kept up to date as cards are placed and removed
+    @Test
+    void countSets_MatchesFindSets() {
+
+        countSets_MatchesFindSets(3, 4);
+        countSets_MatchesFindSets(2, 6);
+    }
+
+    private void countSets_MatchesFindSets(int featureSize, int featureCount) {
+
+        Properties properties = new Properties();
+        properties.put("Rows", "3");
+        properties.put("Columns", "5");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), util));
+        Random random = new Random(3);
+
+        for (int round = 0; round < 500; ++round) {
+            int slot = random.nextInt(config.tableSize);
+            if (random.nextInt(3) == 0) table.removeCard(slot);
+            else {
+                int card = random.nextInt(config.deckSize);
+                if (table.cardToSlot[card] == Table.NONE) table.placeCard(card, slot);
+            }
+
+            List<Integer> cards = Arrays.stream(table.slotToCard).filter(card -> card != Table.NONE).boxed().collect(Collectors.toList());
+            assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), table.countSets());
+            assertEquals(table.countSets() > 0, table.hasSets());
+            table.forEachSet(set -> assertEquals(true, util.testSet(set)));
+        }
     }
 
     private void removeAllCards() {
@@ -128,8 +282,9 @@ class TableTest {
         placeSomeCardsAndAssert();
         removeAllCards();
         for (int i = 0; i < slotToCard.length; ++i){
-            assertEquals(null, slotToCard[i]);
+            assertEquals(Table.NONE, slotToCard[i]);
         }
+        assertEquals(0, table.countCards());
         
     }
 
@@ -185,6 +340,11 @@ class TableTest {
             return null;
         }
 
+        @Override
+        public int completeSet(int[] cards) {
+            return -1;
+        }
+
         @Override
         public void spin() {
             // TODO Auto-generated method stub